@@ -0,0 +1,76 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.Fen;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ChessGame queries the server runs after every move: validMoves for every piece of
+ * the side to move, isInCheck and isInCheckmate
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChessGameBenchmark {
+
+    @Param({"opening", "middlegame", "endgame"})
+    public String position;
+
+    private ChessGame game;
+    private ChessPosition[] ownPieces;
+
+    @Setup
+    public void setup() {
+        game = Fen.parse(Positions.named(position));
+        var board = game.getBoard();
+        int count = 0;
+        var squares = new ChessPosition[64];
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                var square = ChessPosition.of(row, col);
+                var piece = board.getPiece(square);
+                if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                    squares[count++] = square;
+                }
+            }
+        }
+        ownPieces = java.util.Arrays.copyOf(squares, count);
+    }
+
+    @Benchmark
+    public void validMoves(Blackhole blackhole) {
+        for (var square : ownPieces) {
+            for (ChessMove move : game.validMoves(square)) {
+                blackhole.consume(move);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean isInCheck() {
+        return game.isInCheck(game.getTeamTurn());
+    }
+
+    @Benchmark
+    public boolean isInCheckmate() {
+        return game.isInCheckmate(game.getTeamTurn());
+    }
+}
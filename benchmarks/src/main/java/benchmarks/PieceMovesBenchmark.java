@@ -0,0 +1,59 @@
+package benchmarks;
+
+import chess.ChessBoard;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.Fen;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ChessPiece.pieceMoves for one piece of each type in a busy middlegame position
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PieceMovesBenchmark {
+
+    @Param({"KING", "QUEEN", "BISHOP", "KNIGHT", "ROOK", "PAWN"})
+    public ChessPiece.PieceType type;
+
+    private ChessBoard board;
+    private ChessPosition position;
+    private ChessPiece piece;
+
+    @Setup
+    public void setup() {
+        board = Fen.parse(Positions.MIDDLEGAME).getBoard();
+        position = switch (type) {
+            case KING -> ChessPosition.of(1, 5);
+            case QUEEN -> ChessPosition.of(3, 6);
+            case BISHOP -> ChessPosition.of(2, 5);
+            case KNIGHT -> ChessPosition.of(5, 5);
+            case ROOK -> ChessPosition.of(1, 8);
+            case PAWN -> ChessPosition.of(5, 4);
+        };
+        piece = board.getPiece(position);
+    }
+
+    @Benchmark
+    public Collection<ChessMove> pieceMoves() {
+        return piece.pieceMoves(board, position);
+    }
+}
@@ -0,0 +1,73 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.Fen;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import websocket.commands.UserGameCommand;
+import websocket.messages.ServerMessage;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gson round trips of the payloads the server stores and broadcasts: the ChessGame saved
+ * in GameData and the LOAD_GAME ServerMessage
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private final Gson serializer = new Gson();
+    private ChessGame game;
+    private String gameJson;
+    private ServerMessage loadGame;
+    private String loadGameJson;
+
+    @Setup
+    public void setup() {
+        game = Fen.parse(Positions.MIDDLEGAME);
+        gameJson = serializer.toJson(game);
+        loadGame = new ServerMessage(ServerMessage.ServerMessageType.LOAD_GAME, null, UserGameCommand.CommandType.MAKE_MOVE);
+        loadGame.setGame(game);
+        loadGame.setColor(ChessGame.TeamColor.WHITE);
+        loadGame.setMove(new ChessMove(ChessPosition.of(5, 5), ChessPosition.of(7, 6), null));
+        loadGame.setUsername("white");
+        loadGame.setLosername("black");
+        loadGameJson = serializer.toJson(loadGame);
+    }
+
+    @Benchmark
+    public String gameToJson() {
+        return serializer.toJson(game);
+    }
+
+    @Benchmark
+    public ChessGame gameFromJson() {
+        return serializer.fromJson(gameJson, ChessGame.class);
+    }
+
+    @Benchmark
+    public String serverMessageToJson() {
+        return serializer.toJson(loadGame);
+    }
+
+    @Benchmark
+    public ServerMessage serverMessageFromJson() {
+        return serializer.fromJson(loadGameJson, ServerMessage.class);
+    }
+}
@@ -0,0 +1,109 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import com.google.gson.Gson;
+import dataaccess.MemoryDataAccess;
+import io.javalin.websocket.WsMessageContext;
+import model.AuthData;
+import model.GameData;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import server.WebSocketHandler;
+import websocket.commands.ConnectCommand;
+import websocket.commands.MakeMoveCommand;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end WebSocketHandler command processing against MemoryDataAccess: Gson parsing,
+ * auth lookup, the move and its check/checkmate evaluation, and serializing the
+ * broadcasts. Sessions are stubs that drop whatever is sent to them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WebSocketHandlerBenchmark {
+
+    private static final int GAME_ID = 1;
+
+    private MemoryDataAccess dataAccess;
+    private WebSocketHandler handler;
+    private Session whiteSession;
+    private Session blackSession;
+    private String connectJson;
+    private String moveJson;
+
+    @Setup
+    public void setup() throws IOException {
+        dataAccess = new MemoryDataAccess();
+        handler = new WebSocketHandler(dataAccess);
+        dataAccess.createAuth(new AuthData("white", "white-token"));
+        dataAccess.createAuth(new AuthData("black", "black-token"));
+        dataAccess.createGame("benchmark", GAME_ID);
+        resetGame();
+        whiteSession = stubSession();
+        blackSession = stubSession();
+
+        var serializer = new Gson();
+        connectJson = serializer.toJson(new ConnectCommand("black-token", GAME_ID, ChessGame.TeamColor.BLACK));
+        moveJson = serializer.toJson(new MakeMoveCommand("white-token", GAME_ID,
+                new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null)));
+        handler.handleMessage(new WsMessageContext("white", whiteSession,
+                serializer.toJson(new ConnectCommand("white-token", GAME_ID, ChessGame.TeamColor.WHITE))));
+        handler.handleMessage(new WsMessageContext("black", blackSession, connectJson));
+    }
+
+    @Benchmark
+    public void connect() throws IOException {
+        handler.handleMessage(new WsMessageContext("black", blackSession, connectJson));
+    }
+
+    /**
+     * Plays 1. e4 from a fresh game each time; resetting the game is part of the measured cost
+     */
+    @Benchmark
+    public void makeMove() throws IOException {
+        resetGame();
+        handler.handleMessage(new WsMessageContext("white", whiteSession, moveJson));
+    }
+
+    private void resetGame() {
+        dataAccess.updateGame(new GameData(GAME_ID, "white", "black", "benchmark", new ChessGame()));
+    }
+
+    private static Session stubSession() {
+        var remote = (RemoteEndpoint) Proxy.newProxyInstance(RemoteEndpoint.class.getClassLoader(),
+                new Class<?>[]{RemoteEndpoint.class}, (proxy, method, args) -> defaultValue(proxy, method.getName(),
+                        method.getReturnType(), args));
+        return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[]{Session.class},
+                (proxy, method, args) -> method.getName().equals("getRemote") ? remote
+                        : defaultValue(proxy, method.getName(), method.getReturnType(), args));
+    }
+
+    private static Object defaultValue(Object proxy, String name, Class<?> type, Object[] args) {
+        return switch (name) {
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "toString" -> "StubSession";
+            case "isOpen" -> true;
+            default -> type == boolean.class ? false : type.isPrimitive() && type != void.class ? 0 : null;
+        };
+    }
+}
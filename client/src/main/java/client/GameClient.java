@@ -4,6 +4,7 @@ import chess.ChessGame;
 import chess.ChessMove;
 import chess.ChessPiece;
 import chess.ChessPosition;
+import chess.GameSnapshot;
 import serverfacade.NotificationHandler;
 import serverfacade.ServerFacade;
 import serverfacade.WebSocketFacade;
@@ -29,7 +30,8 @@ public class GameClient implements Client, NotificationHandler {
     private final WebSocketFacade  webSocketFacade;
     private final String authToken;
     private ChessGame.TeamColor color;
-    private ChessGame game;
+//    Replaced from the websocket thread on every LOAD_GAME while the REPL thread reads it
+    private volatile GameSnapshot game;
     private final int id;
 
     public GameClient(REPL repl, String serverUrl, String authToken, ChessGame game, int id, ChessGame.TeamColor color) {
@@ -38,7 +40,7 @@ public class GameClient implements Client, NotificationHandler {
         webSocketFacade = new WebSocketFacade(serverUrl, this);
         this.authToken = authToken;
         this.color = color;
-        this.game = game;
+        this.game = game == null ? null : game.snapshot();
         this.id = id;
 
         this.webSocketFacade.sendCommand(new ConnectCommand(this.authToken, this.id, color));
@@ -50,7 +52,7 @@ public class GameClient implements Client, NotificationHandler {
         webSocketFacade = new WebSocketFacade(serverUrl, this);
         this.authToken = authToken;
         this.color = ChessGame.TeamColor.WHITE;
-        this.game = game;
+        this.game = game == null ? null : game.snapshot();
         this.id = id;
 
         this.webSocketFacade.sendCommand(new ConnectCommand(this.authToken, this.id, null));
@@ -66,20 +68,21 @@ public class GameClient implements Client, NotificationHandler {
                 repl.printToConsole(notification.getUsername() + " has forfeited the game!\n[GAME] >>> ");
             }
         } else if (notification.getServerMessageType().equals(ServerMessage.ServerMessageType.LOAD_GAME)) {
-            game = notification.getGame();
-            var board = DrawBoard.render(notification.getGame(), this.color, null);
+            game = notification.getGame().snapshot();
+            var board = DrawBoard.render(game, this.color, null);
             repl.printToConsole("\n");
             repl.printToConsole(board);
             if(notification.getMessage() != null) {
                 repl.printToConsole(notification.getMessage());
                 repl.printToConsole("\n");
             }
-            if(notification.getGame().isGameFinished()) {
-                repl.printToConsole(notification.getLosername() + " is in checkmate!");
-            } else if (notification.getGame().isInCheck(notification.getColor())) {
-                repl.printToConsole(notification.getLosername() + " is in check!");
-            } else if (notification.getGame().isInStalemate(notification.getColor())) {
-                repl.printToConsole("It's a stalemate!");
+            switch (game.getStatus()) {
+                case CHECKMATE -> repl.printToConsole(notification.getLosername() + " is in checkmate!");
+                case CHECK -> repl.printToConsole(notification.getLosername() + " is in check!");
+                case STALEMATE -> repl.printToConsole("It's a stalemate!");
+                case DRAW -> repl.printToConsole("It's a draw!");
+                case ONGOING -> {
+                }
             }
             repl.printToConsole("\n[GAME] >>> ");
         } else {
@@ -190,10 +193,10 @@ public class GameClient implements Client, NotificationHandler {
                     throw new Exception("Please enter a valid promotion.");
                 }
             }
-            pos1 = new ChessPosition(row1, nCol1);
-            pos2 = new ChessPosition(row2, nCol2);
+            pos1 = ChessPosition.of(row1, nCol1);
+            pos2 = ChessPosition.of(row2, nCol2);
             move = new ChessMove(pos1, pos2, promotion);
-            if (game.getBoard().getPiece(pos1) == null || !game.getBoard().getPiece(pos1).pieceMoves(game.getBoard(), pos1).contains(move)) {
+            if (game.getPiece(pos1) == null || !game.validMoves(pos1).contains(move)) {
                 throw new Exception("Invalid move.");
             }
         } else {
@@ -222,8 +225,8 @@ public class GameClient implements Client, NotificationHandler {
             if (nCol < 1 || nCol > 8 || row < 1 || row > 8) {
                 throw new Exception("Please enter a valid board position");
             }
-            pos = new ChessPosition(row, nCol);
-            if (game.getBoard().getPiece(pos) == null) {
+            pos = ChessPosition.of(row, nCol);
+            if (game.getPiece(pos) == null) {
                 throw new Exception("No piece in selected spot.");
             }
         } else {
@@ -10,14 +10,21 @@ import static ui.EscapeSequences.*;
 public class DrawBoard {
 
     public static String render(ChessGame game, ChessGame.TeamColor teamColor, ChessPosition position) {
-        var board = game.getBoard();
+        return render(game.snapshot(), teamColor, position);
+    }
+
+    public static String render(GameSnapshot game, ChessGame.TeamColor teamColor, ChessPosition position) {
+        Collection<ChessMove> moves = null;
+        if (position != null && game.getPiece(position) != null) {
+            moves = game.validMoves(position);
+        }
         var sb = new StringBuilder();
         sb.append(ERASE_SCREEN);
         header(teamColor, sb);
         if (teamColor == ChessGame.TeamColor.WHITE) {
-            bodyWhite(game, board, sb, position);
+            bodyWhite(game, moves, sb, position);
         } else if (teamColor == ChessGame.TeamColor.BLACK) {
-            bodyBlack(game, board, sb, position);
+            bodyBlack(game, moves, sb, position);
         }
         header(teamColor, sb);
         sb.append(RESET_TEXT_COLOR).append(RESET_BG_COLOR);
@@ -25,13 +32,13 @@ public class DrawBoard {
         return sb.toString();
     }
 
-    private static void bodyWhite(ChessGame game, ChessBoard board, StringBuilder sb, ChessPosition position) {
+    private static void bodyWhite(GameSnapshot game, Collection<ChessMove> moves, StringBuilder sb, ChessPosition position) {
         for (int row = 8; row >= 1; row--) {
             sb.append(SET_TEXT_COLOR_RED);
             sb.append(SET_BG_COLOR_DARK_GREY);
             sb.append(" ").append(row).append(" ");
             for (int col = 1; col <= 8; col++) {
-                pieces(game, board, sb, row, col, position);
+                pieces(game, moves, sb, row, col, position);
                 sb.append(" ");
             }
             sb.append(SET_TEXT_COLOR_RED);
@@ -41,13 +48,13 @@ public class DrawBoard {
         }
     }
 
-    private static void bodyBlack(ChessGame game, ChessBoard board, StringBuilder sb, ChessPosition position) {
+    private static void bodyBlack(GameSnapshot game, Collection<ChessMove> moves, StringBuilder sb, ChessPosition position) {
         for (int row = 1; row <= 8; row++) {
             sb.append(SET_TEXT_COLOR_RED);
             sb.append(SET_BG_COLOR_DARK_GREY);
             sb.append(" ").append(row).append(" ");
             for (int col = 8; col >= 1; col--) {
-                pieces(game, board, sb, row, col, position);
+                pieces(game, moves, sb, row, col, position);
                 sb.append(" ");
             }
             sb.append(SET_TEXT_COLOR_RED);
@@ -57,9 +64,8 @@ public class DrawBoard {
         }
     }
 
-    private static void pieces(ChessGame game, ChessBoard board, StringBuilder sb, int row, int col, ChessPosition position) {
-        Collection<ChessMove> moves = null;
-        var pos = new ChessPosition(row, col);
+    private static void pieces(GameSnapshot game, Collection<ChessMove> moves, StringBuilder sb, int row, int col, ChessPosition position) {
+        var pos = ChessPosition.of(row, col);
         AtomicBoolean highlight = new AtomicBoolean(false);
         if (position != null) {
             if (position.equals(pos)) {
@@ -67,10 +73,6 @@ public class DrawBoard {
                 sb.append(SET_BG_COLOR_BLUE);
                 highlight.set(true);
             }
-            if (game.getBoard().getPiece(position) != null) {
-                moves = game.validMoves(position);
-//                moves = board.getPiece(position).pieceMoves(board, position);
-            }
             if (moves != null) {
                 for (ChessMove move : moves) {
                     if (move.getEndPosition().equals(pos) && (row + col) % 2 == 0) {
@@ -92,7 +94,7 @@ public class DrawBoard {
             sb.append(SET_TEXT_COLOR_BLACK);
             sb.append(SET_BG_COLOR_WHITE);
         }
-        var piece = game.getBoard().getPiece(pos);
+        var piece = game.getPiece(pos);
         if (piece != null && piece.getTeamColor() == ChessGame.TeamColor.WHITE) {
             if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
                 sb.append(" ").append(WHITE_PAWN);
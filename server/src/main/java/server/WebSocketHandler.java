@@ -96,7 +96,7 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
         }
         var game = dataAccess.getGame(gameId);
         ServerMessage lGMessage = new ServerMessage(ServerMessage.ServerMessageType.LOAD_GAME, null, command.getCommandType());
-        lGMessage.setGame(game.game());
+        lGMessage.setGame(game.game().snapshot());
         lGMessage.setColor(color);
         connections.broadcastRest(gameId, message, username);
         connections.broadcastOne(gameId, lGMessage, username);
@@ -130,13 +130,10 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
                 char[] alpha = "abcdefgh".toCharArray();
                 var sCol = Character.toString(alpha[s]);
                 var eCol = Character.toString(alpha[e]);
-                ChessGame.TeamColor checkColor = null;
                 String lUser = null;
                 if(color == ChessGame.TeamColor.WHITE) {
-                    checkColor = ChessGame.TeamColor.BLACK;
                     lUser = game.blackUsername();
                 } else if (color == ChessGame.TeamColor.BLACK) {
-                    checkColor = ChessGame.TeamColor.WHITE;
                     lUser = game.whiteUsername();
                 }
                 str.append(username).append(" made a move from ").append(sCol).append(move.getStartPosition().getRow())
@@ -148,19 +145,20 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
                     lGMessage = new ServerMessage(ServerMessage.ServerMessageType.LOAD_GAME, null, command.getCommandType());
                     str.append(", and was promoted to ").append(move.getPromotionPiece().toString()).append(".\n[GAME] >>> ");
                 }
-                lGMessage.setGame(game.game());
+                lGMessage.setGame(game.game().snapshot());
                 lGMessage.setColor(color);
                 lGMessage.setMove(move);
                 lGMessage.setUsername(username);
                 lGMessage.setLosername(lUser);
-                if (game.game().isInCheckmate(checkColor)) {
-                    String cString = lUser + " is in checkmate!" + username + " wins!\n[GAME] >>> ";
-                    ServerMessage cMessage =  new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION, cString);
-                    connections.broadcastAll(gameId, cMessage);
-                    game.game().endGame();
-                    dataAccess.updateGame(game);
-                } else if (game.game().isInCheck(checkColor)) {
-                    String cString = lUser + " is in check!\n[GAME] >>> ";
+//                makeMove has already ended the game if this status is terminal
+                String cString = switch (game.game().getStatus()) {
+                    case CHECKMATE -> lUser + " is in checkmate!" + username + " wins!\n[GAME] >>> ";
+                    case CHECK -> lUser + " is in check!\n[GAME] >>> ";
+                    case STALEMATE -> lUser + " has no legal moves. The game is a stalemate!\n[GAME] >>> ";
+                    case DRAW -> "The game is a draw " + drawReason(game.game()) + "!\n[GAME] >>> ";
+                    case ONGOING -> null;
+                };
+                if (cString != null) {
                     ServerMessage cMessage = new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION, cString);
                     connections.broadcastAll(gameId, cMessage);
                 }
@@ -180,6 +178,15 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
         }
     }
 
+    private static String drawReason(ChessGame game) {
+        if (game.isInsufficientMaterial()) {
+            return "by insufficient material";
+        } else if (game.isFiftyMoveRule()) {
+            return "by the fifty-move rule";
+        }
+        return "by threefold repetition";
+    }
+
     private void leaveGame(int gameId, String username, UserGameCommand command) throws IOException, BadRequestException, DataAccessException {
         var game = dataAccess.getGame(gameId);
         if (game.whiteUsername() != null && game.whiteUsername().equals(username)) {
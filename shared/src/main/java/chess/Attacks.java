@@ -0,0 +1,205 @@
+package chess;
+
+/**
+ * Precomputed attack tables for every piece type, indexed by square (0 for a1
+ * through 63 for h8). Leapers use plain per-square tables; rooks and bishops use
+ * magic bitboards, so a slider lookup is one mask, one multiply and one shift.
+ * Everything is computed once when the class is loaded.
+ */
+final class Attacks {
+
+    static final long[] KNIGHT = new long[64];
+    static final long[] KING = new long[64];
+    /** [color ordinal][square]: the squares a pawn of that color on that square attacks */
+    static final long[][] PAWN = new long[2][64];
+    /** [a][b]: the squares strictly between two squares on a shared rank, file or diagonal, else empty */
+    static final long[][] BETWEEN = new long[64][64];
+    /** [a][b]: the whole rank, file or diagonal through two aligned squares, else empty */
+    static final long[][] LINE = new long[64][64];
+
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+//    Magic multipliers found once by a seeded trial-and-error search; each one maps every relevant
+//    occupancy of its square onto a dense table index without a harmful collision
+    private static final long[] ROOK_MAGIC = {
+            0x0880004000801022L, 0x4440200440021000L, 0x088008D002200080L, 0x2500209000090004L,
+            0x1080040068008022L, 0x2200010842004410L, 0x1500008409000200L, 0x020000804029040AL,
+            0x4800800040008020L, 0x2082002200410082L, 0x0301001041082000L, 0xC041808008003000L,
+            0x00A4800400800800L, 0x0010800200800400L, 0x0184800100020080L, 0x0040800040802100L,
+            0x4000848004400060L, 0x8684444010002000L, 0x2006820010204200L, 0x0000090021001000L,
+            0x2009010008001004L, 0x900C008004020080L, 0x4108040001100288L, 0x5020220000804114L,
+            0x0080034240002000L, 0x03D0104040002000L, 0x4000100480200480L, 0x0040401200200A00L,
+            0x1032000600102008L, 0x0B820002801C0080L, 0x080A004200011488L, 0x0002908200140041L,
+            0x0080002000400040L, 0x10E0804000802003L, 0x0220100080802000L, 0x2204805004800801L,
+            0xC805004413000800L, 0x0050020080800400L, 0x0010800100800200L, 0x0004008502000864L,
+            0x0002008100420020L, 0x000150002008C000L, 0x090C410020090010L, 0x88422200400A0011L,
+            0x0008002040040400L, 0x0002001004020008L, 0x00008D2842040010L, 0x4204410080420004L,
+            0x0040800821004100L, 0x0200842000400480L, 0x0020620140B68200L, 0x80100008E1510100L,
+            0x0080800801040180L, 0x0803000804000300L, 0x0000080162300400L, 0x4002108041040200L,
+            0x8200102040800101L, 0x4602400016210481L, 0x08000A0040102082L, 0x0410210108100005L,
+            0x1011001008000423L, 0x11B1000400020801L, 0x0000012200881004L, 0x000008204401008AL,
+    };
+    private static final long[] BISHOP_MAGIC = {
+            0x08040104010A0A00L, 0x20080800C4004040L, 0x211008B0A1010804L, 0x0108061840900088L,
+            0x0210882000442020L, 0x3009045241040400L, 0xC010A80802100046L, 0x02018A0802010400L,
+            0x080010111001204AL, 0x0080041024005080L, 0x8140418103010080L, 0x0040640428800614L,
+            0x0000411041302012L, 0x0022008820880490L, 0x402000450C10C080L, 0x1454020704925000L,
+            0x4044000988080800L, 0x02A0000404041044L, 0x05020030102A0320L, 0x020420180A0060A8L,
+            0x8882004C02110000L, 0x0083000200514404L, 0x002C040209046208L, 0x2285180044008409L,
+            0x2002081020481020L, 0x1004020004884820L, 0x02180A000C4A0600L, 0x0480802008020020L,
+            0x0481020004008400L, 0x0470030001806104L, 0x4304084404210408L, 0x0002890040844802L,
+            0x2201200800105020L, 0x8803A49001201200L, 0x0400222408480800L, 0x0004208020080200L,
+            0x0008020010040900L, 0x1002004100021008L, 0x0002108A00010800L, 0x3050810100A04410L,
+            0x0024100808230400L, 0x10010410AA004420L, 0x01000C0048002401L, 0x0081011414041800L,
+            0x0400812012000100L, 0x0040182804204840L, 0x0144100220420A00L, 0x0410020216204040L,
+            0x8006010420050020L, 0x48120280D8082001L, 0x8000428048280000L, 0x1000230042020081L,
+            0x8244A21002120340L, 0x0100081001820880L, 0x0421044102340000L, 0x0004114802008404L,
+            0x2080842110022010L, 0x0020007309082000L, 0x1010200052080400L, 0x4201009200460800L,
+            0x00084040E014A401L, 0x2101004011240121L, 0x0520404204840080L, 0x0A4C907009012380L,
+    };
+
+    private static final long[] ROOK_MASK = new long[64];
+    private static final int[] ROOK_SHIFT = new int[64];
+    private static final long[][] ROOK_TABLE = new long[64][];
+    private static final long[] BISHOP_MASK = new long[64];
+    private static final int[] BISHOP_SHIFT = new int[64];
+    private static final long[][] BISHOP_TABLE = new long[64][];
+
+    static {
+        int[][] knightSteps = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+        int[][] kingSteps = {{1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1}};
+        for (int square = 0; square < 64; square++) {
+            KNIGHT[square] = steps(square, knightSteps);
+            KING[square] = steps(square, kingSteps);
+            PAWN[ChessGame.TeamColor.WHITE.ordinal()][square] = steps(square, new int[][]{{1, 1}, {1, -1}});
+            PAWN[ChessGame.TeamColor.BLACK.ordinal()][square] = steps(square, new int[][]{{-1, 1}, {-1, -1}});
+        }
+        for (int square = 0; square < 64; square++) {
+            initMagic(square, ROOK_DIRECTIONS, ROOK_MASK, ROOK_MAGIC, ROOK_SHIFT, ROOK_TABLE);
+            initMagic(square, BISHOP_DIRECTIONS, BISHOP_MASK, BISHOP_MAGIC, BISHOP_SHIFT, BISHOP_TABLE);
+        }
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                long ends = (1L << a) | (1L << b);
+                if (a != b && (rook(a, 0L) & (1L << b)) != 0) {
+                    BETWEEN[a][b] = rook(a, 1L << b) & rook(b, 1L << a);
+                    LINE[a][b] = (rook(a, 0L) & rook(b, 0L)) | ends;
+                } else if (a != b && (bishop(a, 0L) & (1L << b)) != 0) {
+                    BETWEEN[a][b] = bishop(a, 1L << b) & bishop(b, 1L << a);
+                    LINE[a][b] = (bishop(a, 0L) & bishop(b, 0L)) | ends;
+                }
+            }
+        }
+    }
+
+    private Attacks() {
+    }
+
+    static long rook(int square, long occupied) {
+        return ROOK_TABLE[square][(int) (((occupied & ROOK_MASK[square]) * ROOK_MAGIC[square]) >>> ROOK_SHIFT[square])];
+    }
+
+    static long bishop(int square, long occupied) {
+        return BISHOP_TABLE[square][(int) (((occupied & BISHOP_MASK[square]) * BISHOP_MAGIC[square]) >>> BISHOP_SHIFT[square])];
+    }
+
+    static long queen(int square, long occupied) {
+        return rook(square, occupied) | bishop(square, occupied);
+    }
+
+    /**
+     * @return the squares a piece of the given type attacks from a square. Pawns are
+     * not handled here since their attacks depend on color
+     */
+    static long of(ChessPiece.PieceType type, int square, long occupied) {
+        return switch (type) {
+            case KING -> KING[square];
+            case QUEEN -> queen(square, occupied);
+            case BISHOP -> bishop(square, occupied);
+            case KNIGHT -> KNIGHT[square];
+            case ROOK -> rook(square, occupied);
+            case PAWN -> throw new IllegalArgumentException("Pawn attacks depend on color");
+        };
+    }
+
+    private static long steps(int square, int[][] deltas) {
+        int row = square >>> 3;
+        int col = square & 7;
+        long bits = 0L;
+        for (int[] delta : deltas) {
+            int r = row + delta[0];
+            int c = col + delta[1];
+            if (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                bits |= 1L << (r * 8 + c);
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Walks each ray from the square until it runs into a blocker (inclusive) or the edge.
+     * Only used to fill the magic tables.
+     */
+    private static long slide(int square, long occupied, int[][] directions) {
+        int row = square >>> 3;
+        int col = square & 7;
+        long bits = 0L;
+        for (int[] direction : directions) {
+            int r = row + direction[0];
+            int c = col + direction[1];
+            while (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                long bit = 1L << (r * 8 + c);
+                bits |= bit;
+                if ((occupied & bit) != 0) {
+                    break;
+                }
+                r += direction[0];
+                c += direction[1];
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * The relevant occupancy mask: every square on the rays except the last one on each,
+     * since a piece on the edge square never changes what is attacked.
+     */
+    private static long relevantMask(int square, int[][] directions) {
+        int row = square >>> 3;
+        int col = square & 7;
+        long bits = 0L;
+        for (int[] direction : directions) {
+            int r = row + direction[0];
+            int c = col + direction[1];
+            while (r + direction[0] >= 0 && r + direction[0] < 8 && c + direction[1] >= 0 && c + direction[1] < 8) {
+                bits |= 1L << (r * 8 + c);
+                r += direction[0];
+                c += direction[1];
+            }
+        }
+        return bits;
+    }
+
+    private static void initMagic(int square, int[][] directions, long[] masks, long[] magics, int[] shifts,
+                                  long[][] tables) {
+        long mask = relevantMask(square, directions);
+        int bits = Long.bitCount(mask);
+        long[] table = new long[1 << bits];
+        boolean[] filled = new boolean[1 << bits];
+        long subset = 0L;
+        do {
+            int index = (int) ((subset * magics[square]) >>> (64 - bits));
+            long attacks = slide(square, subset, directions);
+            if (filled[index] && table[index] != attacks) {
+                throw new IllegalStateException("Bad magic for square " + square);
+            }
+            filled[index] = true;
+            table[index] = attacks;
+            subset = (subset - mask) & mask;
+        } while (subset != 0);
+        masks[square] = mask;
+        shifts[square] = 64 - bits;
+        tables[square] = table;
+    }
+}
@@ -0,0 +1,136 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Analyzes a batch of positions, such as every position of the archived games, on a
+ * fork/join pool: each position gets its status, its number of legal moves and
+ * optionally a fixed-depth search. Positions are independent, so the batch is simply
+ * split into ranges, and each position is set up as its own game.
+ * <p>
+ * Usage: {@code java chess.BulkAnalysis [--threads n] [--depth n] <file of FENs, one per line>}
+ */
+public final class BulkAnalysis {
+
+//    Positions per task; a search of a few plies takes long enough that small batches balance best
+    private static final int BATCH = 16;
+//    Each batch searches all its positions with one small table, so thousands of positions
+//    don't churn through the heap, and the table goes with the batch
+    private static final int HASH_MB = 1;
+
+    /**
+     * What was found about one position
+     *
+     * @param status     null if the FEN could not be read
+     * @param search     the search result, or null when no search was asked for, the FEN
+     *                   could not be read or there are no legal moves
+     * @param error      why the FEN could not be read, otherwise null
+     */
+    public record Report(String fen, ChessGame.GameStatus status, int legalMoves, Search.Result search,
+                         String error) {
+    }
+
+    private BulkAnalysis() {
+    }
+
+    /**
+     * @param depth how deep to search each position, or 0 not to search
+     * @return one report per FEN, in the same order
+     */
+    public static List<Report> analyze(List<String> fens, int depth, ForkJoinPool pool) {
+        var reports = new Report[fens.size()];
+        pool.invoke(new Batch(fens, depth, reports, 0, reports.length));
+        return Arrays.asList(reports);
+    }
+
+    private static final class Batch extends RecursiveAction {
+
+        private final List<String> fens;
+        private final int depth;
+        private final Report[] reports;
+        private final int from;
+        private final int to;
+
+        Batch(List<String> fens, int depth, Report[] reports, int from, int to) {
+            this.fens = fens;
+            this.depth = depth;
+            this.reports = reports;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > BATCH) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Batch(fens, depth, reports, from, middle), new Batch(fens, depth, reports, middle, to));
+                return;
+            }
+            var table = depth > 0 ? new TranspositionTable(HASH_MB) : null;
+            for (int i = from; i < to; i++) {
+                reports[i] = analyze(fens.get(i), depth, table);
+            }
+        }
+    }
+
+    private static Report analyze(String fen, int depth, TranspositionTable table) {
+        ChessGame game;
+        try {
+            game = Fen.parse(fen);
+        } catch (IllegalArgumentException e) {
+            return new Report(fen, null, 0, null, e.getMessage());
+        }
+        int legalMoves = game.legalMoves(game.getTeamTurn()).size();
+        Search.Result search = null;
+        if (depth > 0 && legalMoves > 0) {
+            search = new Search(game, table).run(Search.Limits.depth(depth));
+        }
+        return new Report(fen, game.getStatus(), legalMoves, search, null);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int depth = 0;
+        Path input = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--depth" -> depth = Integer.parseInt(args[++i]);
+                default -> input = Path.of(args[i]);
+            }
+        }
+        if (input == null) {
+            System.err.println("Usage: java chess.BulkAnalysis [--threads n] [--depth n] <file of FENs>");
+            return;
+        }
+        var fens = new ArrayList<String>();
+        for (var line : Files.readAllLines(input)) {
+            if (!line.isBlank()) {
+                fens.add(line.trim());
+            }
+        }
+        var pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        var reports = analyze(fens, depth, pool);
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+        for (var report : reports) {
+            if (report.error() != null) {
+                System.out.printf("%s\terror: %s%n", report.fen(), report.error());
+            } else if (report.search() == null) {
+                System.out.printf("%s\t%s\t%d%n", report.fen(), report.status(), report.legalMoves());
+            } else {
+                System.out.printf("%s\t%s\t%d\t%s\t%d%n", report.fen(), report.status(), report.legalMoves(),
+                        Move.toString(Move.encode(report.search().bestMove())), report.search().score());
+            }
+        }
+        System.err.printf("%,d positions on %d threads in %,d ms%n", reports.size(), threads, elapsed / 1_000_000);
+    }
+}
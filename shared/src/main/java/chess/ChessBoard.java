@@ -1,6 +1,5 @@
 package chess;
 
-import java.util.Arrays;
 import java.util.Objects;
 
 /**
@@ -11,7 +10,27 @@ import java.util.Objects;
  */
 public class ChessBoard implements Cloneable {
 
+    private static final long DARK_SQUARES = 0xAA55AA55AA55AA55L;
+
     private ChessPiece[][] board = new ChessPiece[8][8];
+
+//    Bitboard index over the mailbox array, one bit per square with a1 = bit 0 and h8 = bit 63.
+//    These are transient so the serialized form stays the 8x8 array; the index is rebuilt lazily
+//    the first time it is needed after construction or deserialization.
+    private transient long[] pieceBitboards;
+    private transient long[] colorBitboards;
+    private transient long occupied;
+    private transient long key;
+//    Running evaluation terms, see Evaluation: white-minus-black middlegame and endgame scores
+//    and the game phase of the material on the board
+    private transient int middlegameScore;
+    private transient int endgameScore;
+    private transient int phase;
+    private transient boolean indexed;
+//    Bumped on every change to the board so callers can tell whether results they derived
+//    from it (such as ChessGame's legal move cache) are still current
+    private transient long version;
+
     public ChessBoard() {
 
     }
@@ -23,11 +42,11 @@ public class ChessBoard implements Cloneable {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        board[position.getRow() - 1][position.getColumn() - 1] = piece;
+        setPiece(checkedSquare(position), piece);
     }
 
     public void removePiece(ChessPosition position) {
-        board[position.getRow() - 1][position.getColumn() - 1] = null;
+        setPiece(checkedSquare(position), null);
     }
 
     /**
@@ -48,37 +67,237 @@ public class ChessBoard implements Cloneable {
      */
     public void resetBoard() {
 //        Clear Board
-        for (int i = 0; i < 8; i++) {
-            for (int j = 2; j < 6; j++) {
-                board[i][j] = null;
-            }
-        }
+        board = new ChessPiece[8][8];
+        indexed = false;
+        version++;
 //        Set Pawns
         for (int i = 1; i <= 8; i++) {
-            addPiece(new ChessPosition(2, i), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
-            addPiece(new ChessPosition(7, i), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(2, i), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(7, i), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
         }
 //        Set Rooks
-        addPiece(new ChessPosition(1, 1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
-        addPiece(new ChessPosition(8, 1), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
-        addPiece(new ChessPosition(1, 8), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
-        addPiece(new ChessPosition(8, 8), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(1, 1), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(8, 1), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(1, 8), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(8, 8), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
 //        Set Knights
-        addPiece(new ChessPosition(1, 2), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(8, 2), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(1, 7), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(8, 7), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(1, 2), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(8, 2), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(1, 7), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(8, 7), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
 //        Set Bishops
-        addPiece(new ChessPosition(1, 3), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(8, 3), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(1, 6), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(8, 6), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(1, 3), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(8, 3), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(1, 6), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(8, 6), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
 //        Set Queens
-        addPiece(new ChessPosition(1, 4), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
-        addPiece(new ChessPosition(8, 4), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
+        addPiece(ChessPosition.of(1, 4), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        addPiece(ChessPosition.of(8, 4), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
 //        Set Kings
-        addPiece(new ChessPosition(1, 5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
-        addPiece(new ChessPosition(8, 5), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        addPiece(ChessPosition.of(1, 5), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        addPiece(ChessPosition.of(8, 5), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+    }
+
+    /**
+     * @return the square index (0 for a1 through 63 for h8) of a position
+     */
+    static int square(ChessPosition position) {
+        return (position.getRow() - 1) * 8 + position.getColumn() - 1;
+    }
+
+    /**
+     * @return the bitboard index (0-11) of a piece: color-major, then piece type
+     */
+    static int pieceIndex(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    private static int checkedSquare(ChessPosition position) {
+        return Objects.checkIndex(position.getRow() - 1, 8) * 8 + Objects.checkIndex(position.getColumn() - 1, 8);
+    }
+
+    ChessPiece getPiece(int square) {
+        return board[square >>> 3][square & 7];
+    }
+
+    /**
+     * Puts a piece (or nothing, if null) on a square, keeping the bitboard index in step
+     */
+    void setPiece(int square, ChessPiece piece) {
+        var old = board[square >>> 3][square & 7];
+        board[square >>> 3][square & 7] = piece;
+        version++;
+        if (indexed) {
+            if (old != null) {
+                unindex(square, old);
+            }
+            if (piece != null) {
+                index(square, piece);
+            }
+        }
+    }
+
+    long pieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        ensureIndexed();
+        return pieceBitboards[pieceIndex(color, type)];
+    }
+
+    long pieces(ChessGame.TeamColor color) {
+        ensureIndexed();
+        return colorBitboards[color.ordinal()];
+    }
+
+    /**
+     * @return the square of the given team's king, or -1 if it has none. Read straight off
+     * the king bitboard, which addPiece/removePiece/setPiece keep current, so this is O(1)
+     */
+    int kingSquare(ChessGame.TeamColor color) {
+        long kings = pieces(color, ChessPiece.PieceType.KING);
+        return kings == 0 ? -1 : 63 - Long.numberOfLeadingZeros(kings);
+    }
+
+    /**
+     * Looks outward from a square along knight, pawn, king and slider rays to decide
+     * whether any piece of the given team attacks it
+     */
+    boolean isSquareAttacked(int square, ChessGame.TeamColor byColor) {
+        return isSquareAttacked(square, byColor, occupied());
+    }
+
+    /**
+     * Same as {@link #isSquareAttacked(int, ChessGame.TeamColor)} but with slider rays
+     * blocked by the given occupancy instead of the board's own
+     */
+    boolean isSquareAttacked(int square, ChessGame.TeamColor byColor, long occupied) {
+        ensureIndexed();
+        int base = byColor.ordinal() * 6;
+        long queens = pieceBitboards[base + ChessPiece.PieceType.QUEEN.ordinal()];
+        return (Attacks.PAWN[byColor.opponent().ordinal()][square] & pieceBitboards[base + ChessPiece.PieceType.PAWN.ordinal()]) != 0
+                || (Attacks.KNIGHT[square] & pieceBitboards[base + ChessPiece.PieceType.KNIGHT.ordinal()]) != 0
+                || (Attacks.KING[square] & pieceBitboards[base + ChessPiece.PieceType.KING.ordinal()]) != 0
+                || (Attacks.bishop(square, occupied) & (pieceBitboards[base + ChessPiece.PieceType.BISHOP.ordinal()] | queens)) != 0
+                || (Attacks.rook(square, occupied) & (pieceBitboards[base + ChessPiece.PieceType.ROOK.ordinal()] | queens)) != 0;
+    }
+
+    /**
+     * @return every piece of either team that attacks a square, with slider rays blocked
+     * by the given occupancy
+     */
+    long attackersTo(int square, long occupied) {
+        ensureIndexed();
+        long queens = both(ChessPiece.PieceType.QUEEN);
+        return (Attacks.PAWN[ChessGame.TeamColor.BLACK.ordinal()][square] & pieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN))
+                | (Attacks.PAWN[ChessGame.TeamColor.WHITE.ordinal()][square] & pieces(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN))
+                | (Attacks.KNIGHT[square] & both(ChessPiece.PieceType.KNIGHT))
+                | (Attacks.KING[square] & both(ChessPiece.PieceType.KING))
+                | (Attacks.bishop(square, occupied) & (both(ChessPiece.PieceType.BISHOP) | queens))
+                | (Attacks.rook(square, occupied) & (both(ChessPiece.PieceType.ROOK) | queens));
+    }
+
+    private long both(ChessPiece.PieceType type) {
+        return pieceBitboards[type.ordinal()] | pieceBitboards[6 + type.ordinal()];
+    }
+
+    /**
+     * @return true if neither side has the material to ever deliver mate: only kings, a
+     * single knight or bishop, or bishops that all stand on squares of one color. Read off
+     * the piece bitboards, which are maintained as pieces move, so this is a few popcounts
+     */
+    boolean insufficientMaterial() {
+        ensureIndexed();
+        if ((both(ChessPiece.PieceType.PAWN) | both(ChessPiece.PieceType.ROOK) | both(ChessPiece.PieceType.QUEEN)) != 0) {
+            return false;
+        }
+        long knights = both(ChessPiece.PieceType.KNIGHT);
+        long bishops = both(ChessPiece.PieceType.BISHOP);
+        if (Long.bitCount(knights | bishops) <= 1) {
+            return true;
+        }
+        return knights == 0 && ((bishops & DARK_SQUARES) == 0 || (bishops & ~DARK_SQUARES) == 0);
+    }
+
+    int middlegameScore() {
+        ensureIndexed();
+        return middlegameScore;
+    }
+
+    int endgameScore() {
+        ensureIndexed();
+        return endgameScore;
+    }
+
+    /**
+     * @return the game phase of the material on the board, from 0 with only kings and
+     * pawns up to {@link Evaluation#MAX_PHASE} with the starting pieces
+     */
+    int phase() {
+        ensureIndexed();
+        return phase;
+    }
+
+    /**
+     * @return a counter that changes whenever a piece is added, removed or moved
+     */
+    long version() {
+        return version;
+    }
+
+    long occupied() {
+        ensureIndexed();
+        return occupied;
+    }
+
+    /**
+     * @return the Zobrist key of the pieces on the board (see {@link Zobrist}), kept up to
+     * date incrementally as pieces are added and removed
+     */
+    long key() {
+        ensureIndexed();
+        return key;
+    }
+
+    private void ensureIndexed() {
+        if (indexed) {
+            return;
+        }
+        pieceBitboards = new long[12];
+        colorBitboards = new long[2];
+        occupied = 0L;
+        key = 0L;
+        middlegameScore = 0;
+        endgameScore = 0;
+        phase = 0;
+        indexed = true;
+        for (int square = 0; square < 64; square++) {
+            var piece = getPiece(square);
+            if (piece != null) {
+                index(square, piece);
+            }
+        }
+    }
+
+    private void index(int square, ChessPiece piece) {
+        long bit = 1L << square;
+        int index = piece.index();
+        pieceBitboards[index] |= bit;
+        key ^= Zobrist.PIECE_SQUARE[index][square];
+        middlegameScore += Evaluation.MIDDLEGAME[index][square];
+        endgameScore += Evaluation.ENDGAME[index][square];
+        phase += Evaluation.PHASE[piece.getPieceType().ordinal()];
+        colorBitboards[piece.getTeamColor().ordinal()] |= bit;
+        occupied |= bit;
+    }
+
+    private void unindex(int square, ChessPiece piece) {
+        long bit = ~(1L << square);
+        int index = piece.index();
+        pieceBitboards[index] &= bit;
+        key ^= Zobrist.PIECE_SQUARE[index][square];
+        middlegameScore -= Evaluation.MIDDLEGAME[index][square];
+        endgameScore -= Evaluation.ENDGAME[index][square];
+        phase -= Evaluation.PHASE[piece.getPieceType().ordinal()];
+        colorBitboards[piece.getTeamColor().ordinal()] &= bit;
+        occupied &= bit;
     }
 
     @Override
@@ -87,12 +306,20 @@ public class ChessBoard implements Cloneable {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
-        return Objects.deepEquals(board, that.board);
+        if (key() != that.key()) {
+            return false;
+        }
+        for (int square = 0; square < 64; square++) {
+            if (!ChessPiece.same(getPiece(square), that.getPiece(square))) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(board);
+        return Long.hashCode(key());
     }
 
     @Override
@@ -114,6 +341,10 @@ public class ChessBoard implements Cloneable {
                 copy.board[i][j] = board[i][j]; // or clone if mutable
             }
         }
+        if (indexed) {
+            copy.pieceBitboards = pieceBitboards.clone();
+            copy.colorBitboards = colorBitboards.clone();
+        }
         return copy;
     }
 }
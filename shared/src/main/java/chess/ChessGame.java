@@ -1,8 +1,17 @@
 package chess;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.Objects;
 
 /**
@@ -11,17 +20,64 @@ import java.util.Objects;
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessGame.Adapter.class)
 public class ChessGame {
 
     ChessBoard board;
     TeamColor teamTurn;
     boolean gameFinished;
+    GameStatus status;
+//    Zobrist keys of the positions before each move since the last capture or pawn move,
+//    oldest first, and the number of plies since that move. Repetition checks only ever
+//    look back halfmoveClock entries, and the public makeMove drops the history whenever
+//    the clock goes back to zero, so it stays short however long the game runs. Only the
+//    keys in use are serialized; see Adapter.
+    long[] history = new long[16];
+    int historySize;
+    int halfmoveClock;
+//    The board and version the stored status was computed from. A game read from JSON takes
+//    its stored status as computed from the board it was read with. Null for a game made
+//    from a snapshot, where the status that came with it is trusted as is.
+    private transient ChessBoard statusBoard;
+    private transient long statusVersion;
+
+//    Legal moves of each team, indexed by color ordinal. An entry is current while the game
+//    still holds the same board object at the same version it was generated from.
+    private final transient MoveList[] legalMoves = {new MoveList(), new MoveList()};
+    private final transient ChessBoard[] legalBoard = new ChessBoard[2];
+    private final transient long[] legalVersion = new long[2];
+
+//    Undo stack for makeMove(int)/unmakeMove(): the move, the piece that moved and whatever it captured
+    private transient int[] undoMoves = new int[32];
+    private transient ChessPiece[] undoMoved = new ChessPiece[32];
+    private transient ChessPiece[] undoCaptured = new ChessPiece[32];
+    private transient int[] undoClock = new int[32];
+    private transient int undoDepth;
+
+//    Swap list scratch space for staticExchange()
+    private final transient int[] exchangeGains = new int[StaticExchange.MAX_CAPTURES];
+
+//    The last snapshot handed out and the board state it was taken from; see snapshot()
+    private transient volatile GameSnapshot snapshot;
+    private transient ChessBoard snapshotBoard;
+    private transient long snapshotVersion;
 
     public ChessGame() {
         teamTurn = TeamColor.WHITE;
         board = new ChessBoard();
         gameFinished = false;
         board.resetBoard();
+        status = GameStatus.ONGOING;
+        statusBoard = board;
+        statusVersion = board.version();
+    }
+
+    /**
+     * A game in an existing position, with the status left to be worked out when first asked
+     */
+    ChessGame(ChessBoard board, TeamColor teamTurn) {
+        this.board = board;
+        this.teamTurn = teamTurn;
     }
 
     /**
@@ -38,6 +94,8 @@ public class ChessGame {
      */
     public void setTeamTurn(TeamColor team) {
         teamTurn = team;
+        clearHistory();
+        updateStatus();
     }
 
     /**
@@ -45,7 +103,32 @@ public class ChessGame {
      */
     public enum TeamColor {
         WHITE,
-        BLACK
+        BLACK;
+
+        /**
+         * @return the other team
+         */
+        public TeamColor opponent() {
+            return this == WHITE ? BLACK : WHITE;
+        }
+    }
+
+    /**
+     * The state of the game from the point of view of the team to move
+     */
+    public enum GameStatus {
+        ONGOING,
+        CHECK,
+        CHECKMATE,
+        STALEMATE,
+        DRAW;
+
+        /**
+         * @return True if no more moves can be played
+         */
+        public boolean isTerminal() {
+            return this == CHECKMATE || this == STALEMATE || this == DRAW;
+        }
     }
 
     /**
@@ -58,21 +141,30 @@ public class ChessGame {
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
         var tempPiece = board.getPiece(startPosition);
         if (tempPiece == null) {return null;}
-        var moves = tempPiece.pieceMoves(board, startPosition);
-        Collection<ChessMove> invalidMoves = new HashSet<ChessMove>();
-        for (ChessMove move : moves) {
-            var tempBoard = board.clone();
-            board.addPiece(move.getEndPosition(), tempPiece);
-            board.removePiece(startPosition);
-            if (isInCheck(tempPiece.getTeamColor())) {
-                invalidMoves.add(move);
+        int square = ChessBoard.square(startPosition);
+        var moves = legalMoves(tempPiece.getTeamColor());
+        var result = new ArrayList<ChessMove>();
+        for (int i = 0; i < moves.size(); i++) {
+            if (Move.from(moves.get(i)) == square) {
+                result.add(Move.toChessMove(moves.get(i)));
             }
-            board = tempBoard;
         }
-        for (ChessMove move : invalidMoves) {
-            moves.remove(move);
+        return result;
+    }
+
+    /**
+     * @return every legal move of the given team in the current position, generated once
+     * and reused until the board changes. Callers must not modify the list.
+     */
+    MoveList legalMoves(TeamColor color) {
+        int side = color.ordinal();
+        if (legalBoard[side] != board || legalVersion[side] != board.version()) {
+            legalMoves[side].clear();
+            MoveGenerator.legal(board, color, -1L, legalMoves[side]);
+            legalBoard[side] = board;
+            legalVersion[side] = board.version();
         }
-        return moves;
+        return legalMoves[side];
     }
 
     /**
@@ -82,58 +174,135 @@ public class ChessGame {
      * @throws InvalidMoveException if move is invalid
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
-        boolean moved = false;
         var tempPiece = board.getPiece(move.getStartPosition());
-        var moves = validMoves(move.getStartPosition());
-        if (board.getPiece(move.getStartPosition()) != null) {
-            if (tempPiece.getTeamColor() != teamTurn) {throw new InvalidMoveException("Invalid move!");}
-            if (!moves.isEmpty()) {
-                moved = makeTheMove(move, tempPiece, moves);
-                if (!moved) {
-                    throw new InvalidMoveException("Invalid move!");
-                }
-            } else {
-                throw new InvalidMoveException("Invalid move!");
-            }
-        } else {
+        if (tempPiece == null || tempPiece.getTeamColor() != teamTurn) {
             throw new InvalidMoveException("Invalid move!");
         }
-        if (getTeamTurn() == TeamColor.WHITE) {
-            setTeamTurn(TeamColor.BLACK);
-        } else if (getTeamTurn() == TeamColor.BLACK) {
-            setTeamTurn(TeamColor.WHITE);
+        var moves = legalMoves(teamTurn);
+        int requested = Move.encode(move);
+        for (int i = 0; i < moves.size(); i++) {
+            if (Move.sameMove(moves.get(i), requested)) {
+                makeMove(moves.get(i));
+                undoDepth = 0;
+                if (halfmoveClock == 0) {
+                    historySize = 0;
+                }
+                updateStatus();
+                if (status.isTerminal()) {
+                    endGame();
+                }
+                return;
+            }
         }
+        throw new InvalidMoveException("Invalid move!");
     }
 
-    private boolean makeTheMove(ChessMove move, ChessPiece tempPiece, Collection<ChessMove> moves) {
-        for (ChessMove tempMove : moves) {
-            if (tempMove.equals(move)) {
-                if (tempMove.getPromotionPiece() != null) {
-                    board.addPiece(move.getEndPosition(), new ChessPiece(tempPiece.getTeamColor(), tempMove.getPromotionPiece()));
-                } else {
-                    board.addPiece(move.getEndPosition(), tempPiece);
-                }
-                board.removePiece(move.getStartPosition());
-                return true;
-            }
+    /**
+     * Plays a packed move (see {@link Move}) in place and hands the turn to the other
+     * team, recording enough on the undo stack for {@link #unmakeMove()} to restore the
+     * position exactly. The move is not checked for legality.
+     */
+    void makeMove(int move) {
+        if (undoDepth == undoMoves.length) {
+            undoMoves = Arrays.copyOf(undoMoves, undoDepth * 2);
+            undoMoved = Arrays.copyOf(undoMoved, undoDepth * 2);
+            undoCaptured = Arrays.copyOf(undoCaptured, undoDepth * 2);
+            undoClock = Arrays.copyOf(undoClock, undoDepth * 2);
         }
-        return false;
-    }
-
-    private ChessPosition findKing(TeamColor teamColor) {
-        ChessPosition kingPosition = null;
-        for (int i = 1; i <= 8; i++) {
-            for (int j = 1; j <= 8; j++) {
-                ChessPosition tempPosition = new ChessPosition(i, j);
-                if (board.getPiece(tempPosition) != null) {
-                    ChessPiece tempPiece = board.getPiece(tempPosition);
-                    if (tempPiece.getTeamColor() == teamColor && tempPiece.getPieceType() == ChessPiece.PieceType.KING) {
-                        kingPosition = tempPosition;
-                    }
-                }
+        if (historySize == history.length) {
+            history = Arrays.copyOf(history, historySize * 2);
+        }
+        int from = Move.from(move);
+        int to = Move.to(move);
+        var piece = board.getPiece(from);
+        undoMoves[undoDepth] = move;
+        undoMoved[undoDepth] = piece;
+        undoCaptured[undoDepth] = board.getPiece(to);
+        undoClock[undoDepth] = halfmoveClock;
+        undoDepth++;
+        history[historySize++] = key();
+        boolean irreversible = Move.isCapture(move) || piece.getPieceType() == ChessPiece.PieceType.PAWN;
+        halfmoveClock = irreversible ? 0 : halfmoveClock + 1;
+        var promotion = Move.promotion(move);
+        board.setPiece(to, promotion == null ? piece : ChessPiece.of(piece.getTeamColor(), promotion));
+        board.setPiece(from, null);
+        teamTurn = teamTurn.opponent();
+    }
+
+    /**
+     * Takes back the last move played with {@link #makeMove(int)}
+     */
+    void unmakeMove() {
+        undoDepth--;
+        int move = undoMoves[undoDepth];
+        board.setPiece(Move.from(move), undoMoved[undoDepth]);
+        board.setPiece(Move.to(move), undoCaptured[undoDepth]);
+        undoMoved[undoDepth] = null;
+        undoCaptured[undoDepth] = null;
+        halfmoveClock = undoClock[undoDepth];
+        historySize--;
+        teamTurn = teamTurn.opponent();
+    }
+
+    /**
+     * @return how many times the current position has occurred since the last capture or
+     * pawn move, counting the current occurrence. Positions only match with the same side
+     * to move, so the scan steps back two plies at a time.
+     */
+    int repetitions() {
+        long current = key();
+        int count = 1;
+        int oldest = Math.max(0, historySize - halfmoveClock);
+        for (int i = historySize - 2; i >= oldest; i -= 2) {
+            if (history[i] == current) {
+                count++;
             }
         }
-        return kingPosition;
+        return count;
+    }
+
+    /**
+     * Threefold repetition ends the game as a draw straight away rather than letting a
+     * player claim it, so there is no separate fivefold rule
+     *
+     * @return True if the current position has now occurred at least three times
+     */
+    public boolean isThreefoldRepetition() {
+        return repetitions() >= 3;
+    }
+
+    /**
+     * The fifty-move rule ends the game as a draw straight away rather than letting a
+     * player claim it, so there is no separate seventy-five-move rule
+     *
+     * @return True if a hundred plies have passed without a capture or pawn move
+     */
+    public boolean isFiftyMoveRule() {
+        return halfmoveClock >= 100;
+    }
+
+    /**
+     * @return True if neither team has enough material left to checkmate
+     */
+    public boolean isInsufficientMaterial() {
+        return board.insufficientMaterial();
+    }
+
+    /**
+     * Sets the number of plies since the last capture or pawn move, as read from a FEN
+     */
+    void setHalfmoveClock(int plies) {
+        historySize = 0;
+        halfmoveClock = plies;
+        updateStatus();
+    }
+
+    /**
+     * Forgets the position history, for when the position is replaced rather than played into
+     */
+    private void clearHistory() {
+        historySize = 0;
+        halfmoveClock = 0;
     }
 
     /**
@@ -143,15 +312,34 @@ public class ChessGame {
      * @return True if the specified team is in check
      */
     public boolean isInCheck(TeamColor teamColor) {
-        ChessPosition kingPosition = findKing(teamColor);
-        TeamColor color = TeamColor.WHITE;
-        if (teamColor == TeamColor.WHITE) {
-            color = TeamColor.BLACK;
-        }
-        if (checkBoard(kingPosition, color, true)) {
-            return true;
+        int king = board.kingSquare(teamColor);
+        return king >= 0 && board.isSquareAttacked(king, teamColor.opponent());
+    }
+
+    /**
+     * Determines if any piece of the given team attacks a square
+     *
+     * @param square    the square to look at
+     * @param byColor   the attacking team
+     * @return True if at least one piece of byColor attacks the square
+     */
+    public boolean isSquareAttacked(ChessPosition square, TeamColor byColor) {
+        return board.isSquareAttacked(ChessBoard.square(square), byColor);
+    }
+
+    /**
+     * Works out what a move wins or loses once both sides have made every profitable
+     * capture on its target square, for annotating moves. Pins and checks are ignored
+     *
+     * @param move a move of the piece on its start position; it need not be legal
+     * @return the material balance of the exchange for the moving side, in centipawns
+     * @throws IllegalArgumentException if there is no piece on the start position
+     */
+    public int staticExchange(ChessMove move) {
+        if (board.getPiece(move.getStartPosition()) == null) {
+            throw new IllegalArgumentException("No piece at " + move.getStartPosition());
         }
-        return false;
+        return StaticExchange.evaluate(board, Move.encode(move), exchangeGains);
     }
 
     /**
@@ -161,18 +349,7 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
-        var kingPosition = findKing(teamColor);
-        TeamColor color = TeamColor.WHITE;
-        if (teamColor == TeamColor.WHITE) {
-            color = TeamColor.BLACK;
-        }
-        if (!checkAnyMoves(teamColor)) {
-            return false;
-        }
-        if (checkBoard(kingPosition, color, true)) {
-            return true;
-        }
-        return false;
+        return isInCheck(teamColor) && checkAnyMoves(teamColor);
     }
 
     /**
@@ -183,70 +360,11 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        var kingPosition = findKing(teamColor);
-        TeamColor color = TeamColor.WHITE;
-        if (teamColor == TeamColor.WHITE) {
-            color = TeamColor.BLACK;
-        }
-        if (!checkAnyMoves(teamColor)) {
-            return false;
-        }
-        if (!checkBoard(kingPosition, color, false)) {
-            return false;
-        }
-        return true;
-    }
-
-    private boolean anyMoves(ChessPosition tempPosition, TeamColor teamColor) {
-        if (board.getPiece(tempPosition) != null) {
-            ChessPiece tempPiece = board.getPiece(tempPosition);
-            if (tempPiece.getTeamColor() == teamColor) {
-                Collection<ChessMove> moves = validMoves(tempPosition);
-                if (!moves.isEmpty()) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return !isInCheck(teamColor) && checkAnyMoves(teamColor);
     }
 
     private boolean checkAnyMoves(TeamColor teamColor) {
-        for (int i = 1; i <= 8; i++) {
-            for (int j = 1; j <= 8; j++) {
-                ChessPosition tempPosition = new ChessPosition(i, j);
-                if (!anyMoves(tempPosition, teamColor)) {
-                    return false;
-                }
-            }
-        }
-        return true;
-    }
-
-    private boolean checkForCheck(ChessPosition kingPosition, ChessPosition tempPosition, TeamColor color) {
-        if (board.getPiece(tempPosition) != null) {
-            ChessPiece tempPiece = board.getPiece(tempPosition);
-            if (tempPiece.getTeamColor() == color) {
-                Collection<ChessMove> moves = tempPiece.pieceMoves(board, tempPosition);
-                for (ChessMove move : moves) {
-                    if (move.getEndPosition().equals(kingPosition)) {
-                        return false;
-                    }
-                }
-            }
-        }
-        return true;
-    }
-
-    private boolean checkBoard(ChessPosition kingPosition, TeamColor color, boolean response) {
-        for (int i = 1; i <= 8; i++) {
-            for (int j = 1; j <= 8; j++) {
-                ChessPosition tempPosition = new ChessPosition(i, j);
-                if (!checkForCheck(kingPosition, tempPosition, color)) {
-                    return response;
-                }
-            }
-        }
-        return !response;
+        return legalMoves(teamColor).isEmpty();
     }
 
     /**
@@ -256,6 +374,8 @@ public class ChessGame {
      */
     public void setBoard(ChessBoard board) {
         this.board = board;
+        clearHistory();
+        updateStatus();
     }
 
     /**
@@ -267,6 +387,56 @@ public class ChessGame {
         return board;
     }
 
+    /**
+     * Gets the status of the game for the team to move, as computed after the last move.
+     * It is only recomputed if the board has been changed directly since then.
+     *
+     * @return the game status
+     */
+    public GameStatus getStatus() {
+        if (status == null || (statusBoard != null && (statusBoard != board || statusVersion != board.version()))) {
+            updateStatus();
+        }
+        return status;
+    }
+
+    /**
+     * Works out check, checkmate, stalemate and the draw rules for the team to move in one
+     * pass: one attack query, one (cached) legal move generation, a few popcounts for the
+     * material and one history scan
+     */
+    private void updateStatus() {
+        boolean check = isInCheck(teamTurn);
+        boolean stuck = legalMoves(teamTurn).isEmpty();
+        if (stuck) {
+            status = check ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
+        } else if (isFiftyMoveRule() || isInsufficientMaterial() || isThreefoldRepetition()) {
+            status = GameStatus.DRAW;
+        } else {
+            status = check ? GameStatus.CHECK : GameStatus.ONGOING;
+        }
+        statusBoard = board;
+        statusVersion = board.version();
+    }
+
+    /**
+     * Takes an immutable copy of the current position for other threads to read while this
+     * game keeps being played. The same snapshot is returned again until the game changes.
+     *
+     * @return the snapshot
+     */
+    public GameSnapshot snapshot() {
+        var current = snapshot;
+        if (current == null || snapshotBoard != board || snapshotVersion != board.version()
+                || current.getTeamTurn() != teamTurn || current.isGameFinished() != gameFinished) {
+            current = new GameSnapshot(this);
+            snapshotBoard = board;
+            snapshotVersion = board.version();
+            snapshot = current;
+        }
+        return current;
+    }
+
     public void endGame() {
         gameFinished = true;
     }
@@ -281,12 +451,19 @@ public class ChessGame {
             return false;
         }
         ChessGame chessGame = (ChessGame) o;
-        return Objects.equals(board, chessGame.board) && teamTurn == chessGame.teamTurn;
+        return teamTurn == chessGame.teamTurn && Objects.equals(board, chessGame.board);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(board, teamTurn);
+        return Long.hashCode(key());
+    }
+
+    /**
+     * @return the Zobrist key of the position: the board's key with the side to move folded in
+     */
+    long key() {
+        return teamTurn == TeamColor.BLACK ? board.key() ^ Zobrist.BLACK_TO_MOVE : board.key();
     }
 
     @Override
@@ -296,4 +473,99 @@ public class ChessGame {
                 ", teamTurn=" + teamTurn +
                 '}';
     }
+
+    /**
+     * Writes the same object the reflective adapter did, except that the history holds
+     * only the keys in use rather than its whole spare capacity. Games stored with the
+     * full array and a historySize still read back. A game read with a status keeps it
+     * until its board is changed, so loading a stored game doesn't redo the work
+     */
+    static class Adapter implements TypeAdapterFactory {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            if (type.getRawType() != ChessGame.class) {
+                return null;
+            }
+            return (TypeAdapter<T>) new GameAdapter(gson.getAdapter(ChessBoard.class)).nullSafe();
+        }
+    }
+
+    private static final class GameAdapter extends TypeAdapter<ChessGame> {
+
+        private final TypeAdapter<ChessBoard> boards;
+
+        GameAdapter(TypeAdapter<ChessBoard> boards) {
+            this.boards = boards;
+        }
+
+        @Override
+        public void write(JsonWriter out, ChessGame game) throws IOException {
+            out.beginObject();
+            out.name("board");
+            boards.write(out, game.board);
+            out.name("teamTurn").value(game.teamTurn.name());
+            out.name("gameFinished").value(game.gameFinished);
+            if (game.status != null) {
+                out.name("status").value(game.status.name());
+            }
+            out.name("history").beginArray();
+            for (int i = 0; i < game.historySize; i++) {
+                out.value(game.history[i]);
+            }
+            out.endArray();
+            out.name("halfmoveClock").value(game.halfmoveClock);
+            out.endObject();
+        }
+
+        @Override
+        public ChessGame read(JsonReader in) throws IOException {
+            ChessBoard board = null;
+            TeamColor teamTurn = null;
+            boolean gameFinished = false;
+            GameStatus status = null;
+            long[] history = new long[16];
+            int keys = 0;
+            int historySize = -1;
+            int halfmoveClock = 0;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "board" -> board = boards.read(in);
+                    case "teamTurn" -> teamTurn = TeamColor.valueOf(in.nextString());
+                    case "gameFinished" -> gameFinished = in.nextBoolean();
+                    case "status" -> status = GameStatus.valueOf(in.nextString());
+                    case "history" -> {
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            if (keys == history.length) {
+                                history = Arrays.copyOf(history, keys * 2);
+                            }
+                            history[keys++] = in.nextLong();
+                        }
+                        in.endArray();
+                    }
+                    case "historySize" -> historySize = in.nextInt();
+                    case "halfmoveClock" -> halfmoveClock = in.nextInt();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            if (board == null || teamTurn == null) {
+                throw new IOException("Chess game needs both board and teamTurn");
+            }
+            var game = new ChessGame(board, teamTurn);
+            game.gameFinished = gameFinished;
+            game.status = status;
+            game.history = history;
+            game.historySize = historySize < 0 ? keys : Math.min(historySize, keys);
+            game.halfmoveClock = halfmoveClock;
+            if (status != null) {
+                game.statusBoard = board;
+                game.statusVersion = board.version();
+            }
+            return game;
+        }
+    }
 }
@@ -1,8 +1,13 @@
 package chess;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Objects;
 
 /**
  * Represents a single chess piece
@@ -10,8 +15,20 @@ import java.util.Objects;
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessPiece.Adapter.class)
 public class ChessPiece {
 
+//    The 12 shared pieces, indexed color-major then by type like ChessBoard.pieceIndex
+    private static final ChessPiece[] PIECES = new ChessPiece[12];
+
+    static {
+        for (var color : ChessGame.TeamColor.values()) {
+            for (var type : PieceType.values()) {
+                PIECES[color.ordinal() * 6 + type.ordinal()] = new ChessPiece(color, type);
+            }
+        }
+    }
+
     private final ChessGame.TeamColor pieceColor;
     private final PieceType type;
 
@@ -20,6 +37,20 @@ public class ChessPiece {
         this.type = type;
     }
 
+    /**
+     * @return the shared, immutable piece of the given team and type
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
+        return PIECES[pieceColor.ordinal() * 6 + type.ordinal()];
+    }
+
+    /**
+     * @return the shared piece with the given bitboard index (0-11)
+     */
+    static ChessPiece of(int index) {
+        return PIECES[index];
+    }
+
     /**
      * The various different chess piece options
      */
@@ -54,310 +85,9 @@ public class ChessPiece {
      * @return Collection of valid moves
      */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPos) {
-        ChessPiece piece = board.getPiece(myPos);
-        var moves = new HashSet<ChessMove>();
-        int x = 1;
-        if (piece.getPieceType() == PieceType.BISHOP) {
-            return bishopMoves(board, myPos);
-        }
-        else if (piece.getPieceType() == PieceType.ROOK) {
-            return rookMoves(board, myPos);
-        }
-        else if (piece.getPieceType() == PieceType.KING) {
-            return kingMoves(board, myPos);
-        }
-        else if (piece.getPieceType() == PieceType.QUEEN) {
-            var qMoves = new HashSet<ChessMove>(bishopMoves(board, myPos));
-            qMoves.addAll(rookMoves(board, myPos));
-            return qMoves;
-        }
-        else if (piece.getPieceType() == PieceType.KNIGHT) {
-            return knightMoves(board, myPos);
-        }
-        else if (piece.getPieceType() == PieceType.PAWN) {
-            return pawnMoves(board, myPos);
-        }
-        return moves;
-    }
-
-    private Collection<ChessMove> bishopMoves(ChessBoard board, ChessPosition myPos) {
-        ChessPiece piece = board.getPiece(myPos);
-        var moves = new HashSet<ChessMove>();
-        int x = 1;
-        while (myPos.getRow() + x <= 8 && myPos.getColumn() + x <= 8
-                && (board.getPiece(new ChessPosition(myPos.getRow() + x,myPos.getColumn() + x)) == null
-                || board.getPiece(new ChessPosition(myPos.getRow() + x,myPos.getColumn() + x)).getTeamColor() != piece.getTeamColor())) {
-            moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() + x,myPos.getColumn() + x), null));
-            if (board.getPiece(new ChessPosition(myPos.getRow() + x,myPos.getColumn() + x)) != null
-                    && board.getPiece(new ChessPosition(myPos.getRow() + x,myPos.getColumn() + x)).getTeamColor() != piece.getTeamColor()) {
-                break;
-            }
-            x++;
-        }
-        x = 1;
-        while (myPos.getRow() + x <= 8 && myPos.getColumn() - x > 0
-                && (board.getPiece(new ChessPosition(myPos.getRow() + x,myPos.getColumn() - x)) == null
-                || board.getPiece(new ChessPosition(myPos.getRow() + x,myPos.getColumn() - x)).getTeamColor() != piece.getTeamColor())) {
-            moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() + x,myPos.getColumn() - x), null));
-            if (board.getPiece(new ChessPosition(myPos.getRow() + x,myPos.getColumn() - x)) != null
-                    && board.getPiece(new ChessPosition(myPos.getRow() + x,myPos.getColumn() - x)).getTeamColor() != piece.getTeamColor()) {
-                break;
-            }
-            x++;
-        }
-        x = 1;
-        while (myPos.getRow() - x > 0 && myPos.getColumn() + x <= 8
-                && (board.getPiece(new ChessPosition(myPos.getRow() - x,myPos.getColumn() + x)) == null
-                || board.getPiece(new ChessPosition(myPos.getRow() - x,myPos.getColumn() + x)).getTeamColor() != piece.getTeamColor())) {
-            moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() - x,myPos.getColumn() + x), null));
-            if (board.getPiece(new ChessPosition(myPos.getRow() - x,myPos.getColumn() + x)) != null
-                    && board.getPiece(new ChessPosition(myPos.getRow() - x,myPos.getColumn() + x)).getTeamColor() != piece.getTeamColor()) {
-                break;
-            }
-            x++;
-        }
-        x = 1;
-        while (myPos.getRow() - x > 0 && myPos.getColumn() - x > 0
-                && (board.getPiece(new ChessPosition(myPos.getRow() - x,myPos.getColumn() - x)) == null
-                || board.getPiece(new ChessPosition(myPos.getRow() - x,myPos.getColumn() - x)).getTeamColor() != piece.getTeamColor())) {
-            moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() - x,myPos.getColumn() - x), null));
-            if (board.getPiece(new ChessPosition(myPos.getRow() - x,myPos.getColumn() - x)) != null
-                    && board.getPiece(new ChessPosition(myPos.getRow() - x,myPos.getColumn() - x)).getTeamColor() != piece.getTeamColor()) {
-                break;
-            }
-            x++;
-        }
-        return moves;
-    }
-
-    private Collection<ChessMove> rookMoves(ChessBoard board, ChessPosition myPos) {
-        ChessPiece piece = board.getPiece(myPos);
-        var moves = new HashSet<ChessMove>();
-        int x = 1;
-        while (myPos.getRow() + x <= 8
-                && (board.getPiece(new ChessPosition(myPos.getRow() + x,myPos.getColumn())) == null
-                || board.getPiece(new ChessPosition(myPos.getRow() + x,myPos.getColumn())).getTeamColor() != piece.getTeamColor())) {
-            moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() + x,myPos.getColumn()), null));
-            if (board.getPiece(new ChessPosition(myPos.getRow() + x,myPos.getColumn())) != null
-                    && board.getPiece(new ChessPosition(myPos.getRow() + x,myPos.getColumn())).getTeamColor() != piece.getTeamColor()) {
-                break;
-            }
-            x++;
-        }
-        x = 1;
-        while (myPos.getColumn() - x > 0
-                && (board.getPiece(new ChessPosition(myPos.getRow(),myPos.getColumn() - x)) == null
-                || board.getPiece(new ChessPosition(myPos.getRow(),myPos.getColumn() - x)).getTeamColor() != piece.getTeamColor())) {
-            moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow(),myPos.getColumn() - x), null));
-            if (board.getPiece(new ChessPosition(myPos.getRow(),myPos.getColumn() - x)) != null
-                    && board.getPiece(new ChessPosition(myPos.getRow(),myPos.getColumn() - x)).getTeamColor() != piece.getTeamColor()) {
-                break;
-            }
-            x++;
-        }
-        x = 1;
-        while (myPos.getRow() - x > 0
-                && (board.getPiece(new ChessPosition(myPos.getRow() - x,myPos.getColumn())) == null
-                || board.getPiece(new ChessPosition(myPos.getRow() - x,myPos.getColumn())).getTeamColor() != piece.getTeamColor())) {
-            moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() - x,myPos.getColumn()), null));
-            if (board.getPiece(new ChessPosition(myPos.getRow() - x,myPos.getColumn())) != null
-                    && board.getPiece(new ChessPosition(myPos.getRow() - x,myPos.getColumn())).getTeamColor() != piece.getTeamColor()) {
-                break;
-            }
-            x++;
-        }
-        x = 1;
-        while (myPos.getColumn() + x <= 8
-                && (board.getPiece(new ChessPosition(myPos.getRow(),myPos.getColumn() + x)) == null
-                || board.getPiece(new ChessPosition(myPos.getRow(),myPos.getColumn() + x)).getTeamColor() != piece.getTeamColor())) {
-            moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow(),myPos.getColumn() + x), null));
-            if (board.getPiece(new ChessPosition(myPos.getRow(),myPos.getColumn() + x)) != null
-                    && board.getPiece(new ChessPosition(myPos.getRow(),myPos.getColumn() + x)).getTeamColor() != piece.getTeamColor()) {
-                break;
-            }
-            x++;
-        }
-        return moves;
-    }
-
-    private Collection<ChessMove> kingMoves(ChessBoard board, ChessPosition myPos) {
-        ChessPiece piece = board.getPiece(myPos);
-        var moves = new HashSet<ChessMove>();
-        int x = 1;
-        if (myPos.getRow() + 1 <= 8 && myPos.getColumn() + 1 <= 8
-                && (board.getPiece(new ChessPosition(myPos.getRow() + 1, myPos.getColumn() + 1)) == null
-                || board.getPiece(new ChessPosition(myPos.getRow() + 1,myPos.getColumn() + 1)).getTeamColor() != piece.getTeamColor())) {
-            moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() + 1,myPos.getColumn() + 1), null));
-        }
-        if (myPos.getRow() + 1 <= 8 && myPos.getColumn() - 1 > 0
-                && (board.getPiece(new ChessPosition(myPos.getRow() + 1, myPos.getColumn() - 1)) == null
-                || board.getPiece(new ChessPosition(myPos.getRow() + 1,myPos.getColumn() - 1)).getTeamColor() != piece.getTeamColor())) {
-            moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() + 1,myPos.getColumn() - 1), null));
-        }
-        if (myPos.getRow() - 1 > 0 && myPos.getColumn() + 1 <= 8
-                && (board.getPiece(new ChessPosition(myPos.getRow() - 1, myPos.getColumn() + 1)) == null
-                || board.getPiece(new ChessPosition(myPos.getRow() - 1,myPos.getColumn() + 1)).getTeamColor() != piece.getTeamColor())) {
-            moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() - 1,myPos.getColumn() + 1), null));
-        }
-        if (myPos.getRow() - 1 > 0 && myPos.getColumn() - 1 > 0
-                && (board.getPiece(new ChessPosition(myPos.getRow() - 1, myPos.getColumn() - 1)) == null
-                || board.getPiece(new ChessPosition(myPos.getRow() - 1,myPos.getColumn() - 1)).getTeamColor() != piece.getTeamColor())) {
-            moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() - 1,myPos.getColumn() - 1), null));
-        }
-        if (myPos.getRow() + 1 <= 8
-                && (board.getPiece(new ChessPosition(myPos.getRow() + 1, myPos.getColumn())) == null
-                || board.getPiece(new ChessPosition(myPos.getRow() + 1,myPos.getColumn())).getTeamColor() != piece.getTeamColor())) {
-            moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() + 1,myPos.getColumn()), null));
-        }
-        if (myPos.getColumn() + 1 <= 8
-                && (board.getPiece(new ChessPosition(myPos.getRow(), myPos.getColumn() + 1)) == null
-                || board.getPiece(new ChessPosition(myPos.getRow(),myPos.getColumn() + 1)).getTeamColor() != piece.getTeamColor())) {
-            moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow(),myPos.getColumn() + 1), null));
-        }
-        if (myPos.getRow() - 1 > 0
-                && (board.getPiece(new ChessPosition(myPos.getRow() - 1, myPos.getColumn())) == null
-                || board.getPiece(new ChessPosition(myPos.getRow() - 1,myPos.getColumn())).getTeamColor() != piece.getTeamColor())) {
-            moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() - 1,myPos.getColumn()), null));
-        }
-        if (myPos.getColumn() - 1 > 0
-                && (board.getPiece(new ChessPosition(myPos.getRow(), myPos.getColumn() - 1)) == null
-                || board.getPiece(new ChessPosition(myPos.getRow(),myPos.getColumn() - 1)).getTeamColor() != piece.getTeamColor())) {
-            moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow(),myPos.getColumn() - 1), null));
-        }
-        return moves;
-    }
-
-    private Collection<ChessMove> knightMoves(ChessBoard board, ChessPosition myPos) {
-        ChessPiece piece = board.getPiece(myPos);
-        var moves = new HashSet<ChessMove>();
-        int x = 1;
-        if (myPos.getRow() + 1 <= 8 && myPos.getColumn() + 2 <= 8
-                && (board.getPiece(new ChessPosition(myPos.getRow() + 1, myPos.getColumn() + 2)) == null
-                || board.getPiece(new ChessPosition(myPos.getRow() + 1,myPos.getColumn() + 2)).getTeamColor() != piece.getTeamColor())) {
-            moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() + 1,myPos.getColumn() + 2), null));
-        }
-        if (myPos.getRow() + 1 <= 8 && myPos.getColumn() - 2 > 0
-                && (board.getPiece(new ChessPosition(myPos.getRow() + 1, myPos.getColumn() - 2)) == null
-                || board.getPiece(new ChessPosition(myPos.getRow() + 1,myPos.getColumn() - 2)).getTeamColor() != piece.getTeamColor())) {
-            moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() + 1,myPos.getColumn() - 2), null));
-        }
-        if (myPos.getRow() - 1 > 0 && myPos.getColumn() + 2 <= 8
-                && (board.getPiece(new ChessPosition(myPos.getRow() - 1, myPos.getColumn() + 2)) == null
-                || board.getPiece(new ChessPosition(myPos.getRow() - 1,myPos.getColumn() + 2)).getTeamColor() != piece.getTeamColor())) {
-            moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() - 1,myPos.getColumn() + 2), null));
-        }
-        if (myPos.getRow() - 1 > 0 && myPos.getColumn() - 2 > 0
-                && (board.getPiece(new ChessPosition(myPos.getRow() - 1, myPos.getColumn() - 2)) == null
-                || board.getPiece(new ChessPosition(myPos.getRow() - 1,myPos.getColumn() - 2)).getTeamColor() != piece.getTeamColor())) {
-            moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() - 1,myPos.getColumn() - 2), null));
-        }
-        if (myPos.getRow() + 2 <= 8 && myPos.getColumn() + 1 <= 8
-                && (board.getPiece(new ChessPosition(myPos.getRow() + 2, myPos.getColumn() + 1)) == null
-                || board.getPiece(new ChessPosition(myPos.getRow() + 2,myPos.getColumn() + 1)).getTeamColor() != piece.getTeamColor())) {
-            moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() + 2,myPos.getColumn() + 1), null));
-        }
-        if (myPos.getRow() + 2 <= 8 && myPos.getColumn() - 1 > 0
-                && (board.getPiece(new ChessPosition(myPos.getRow() + 2, myPos.getColumn() - 1)) == null
-                || board.getPiece(new ChessPosition(myPos.getRow() + 2,myPos.getColumn() - 1)).getTeamColor() != piece.getTeamColor())) {
-            moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() + 2,myPos.getColumn() - 1), null));
-        }
-        if (myPos.getRow() - 2 > 0 && myPos.getColumn() + 1 <= 8
-                && (board.getPiece(new ChessPosition(myPos.getRow() - 2, myPos.getColumn() + 1)) == null
-                || board.getPiece(new ChessPosition(myPos.getRow() - 2,myPos.getColumn() + 1)).getTeamColor() != piece.getTeamColor())) {
-            moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() - 2,myPos.getColumn() + 1), null));
-        }
-        if (myPos.getRow() - 2 > 0 && myPos.getColumn() - 1 > 0
-                && (board.getPiece(new ChessPosition(myPos.getRow() - 2, myPos.getColumn() - 1)) == null
-                || board.getPiece(new ChessPosition(myPos.getRow() - 2,myPos.getColumn() - 1)).getTeamColor() != piece.getTeamColor())) {
-            moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() - 2,myPos.getColumn() - 1), null));
-        }
-        return moves;
-    }
-
-    private Collection<ChessMove> pawnMoves(ChessBoard board, ChessPosition myPos) {
-        ChessPiece piece = board.getPiece(myPos);
-        var moves = new HashSet<ChessMove>();
-        int x = 1;
-        if (piece.getTeamColor() == ChessGame.TeamColor.WHITE) {
-            if (myPos.getRow() + 1 <= 8 && board.getPiece(new ChessPosition(myPos.getRow() + 1, myPos.getColumn())) == null) {
-                if (myPos.getRow() + 1 == 8) {
-                    moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() + 1, myPos.getColumn()), PieceType.BISHOP));
-                    moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() + 1, myPos.getColumn()), PieceType.ROOK));
-                    moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() + 1, myPos.getColumn()), PieceType.QUEEN));
-                    moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() + 1, myPos.getColumn()), PieceType.KNIGHT));
-                } else if (board.getPiece(new ChessPosition(myPos.getRow() + 2, myPos.getColumn())) == null
-                        && myPos.getRow() == 2) {
-                    moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() + 2, myPos.getColumn()), null));
-                }
-                if (myPos.getRow() + 1 != 8) {
-                    moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() + 1, myPos.getColumn()), null));
-                }
-            }
-            if (myPos.getRow() + 1 <= 8 && myPos.getColumn() + 1 <= 8
-                    && board.getPiece(new ChessPosition(myPos.getRow() + 1, myPos.getColumn() + 1)) != null
-                    && board.getPiece(new ChessPosition(myPos.getRow() + 1, myPos.getColumn() + 1)).getTeamColor() != piece.getTeamColor()) {
-                if (myPos.getRow() + 1 == 8) {
-                    moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() + 1, myPos.getColumn() + 1), PieceType.BISHOP));
-                    moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() + 1, myPos.getColumn() + 1), PieceType.ROOK));
-                    moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() + 1, myPos.getColumn() + 1), PieceType.QUEEN));
-                    moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() + 1, myPos.getColumn() + 1), PieceType.KNIGHT));
-                } else {
-                    moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() + 1, myPos.getColumn() + 1), null));
-                }
-            }
-            if (myPos.getRow() + 1 <= 8 && myPos.getColumn() - 1 > 0
-                    && board.getPiece(new ChessPosition(myPos.getRow() + 1, myPos.getColumn() - 1)) != null
-                    && board.getPiece(new ChessPosition(myPos.getRow() + 1, myPos.getColumn() - 1)).getTeamColor() != piece.getTeamColor()) {
-                if (myPos.getRow() + 1 == 8) {
-                    moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() + 1, myPos.getColumn() - 1), PieceType.BISHOP));
-                    moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() + 1, myPos.getColumn() - 1), PieceType.ROOK));
-                    moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() + 1, myPos.getColumn() - 1), PieceType.QUEEN));
-                    moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() + 1, myPos.getColumn() - 1), PieceType.KNIGHT));
-                } else {
-                    moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() + 1, myPos.getColumn() - 1), null));
-                }
-            }
-        } else if (piece.getTeamColor() == ChessGame.TeamColor.BLACK) {
-            if (myPos.getRow() - 1 > 0 && board.getPiece(new ChessPosition(myPos.getRow() - 1, myPos.getColumn())) == null) {
-                if (myPos.getRow() - 1 == 1) {
-                    moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() - 1, myPos.getColumn()), PieceType.BISHOP));
-                    moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() - 1, myPos.getColumn()), PieceType.ROOK));
-                    moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() - 1, myPos.getColumn()), PieceType.QUEEN));
-                    moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() - 1, myPos.getColumn()), PieceType.KNIGHT));
-                } else if (board.getPiece(new ChessPosition(myPos.getRow() - 2, myPos.getColumn())) == null
-                        && myPos.getRow() == 7) {
-                    moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() - 2, myPos.getColumn()), null));
-                }
-                if (myPos.getRow() - 1 != 1) {
-                    moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() - 1, myPos.getColumn()), null));
-                }
-            }
-            if (myPos.getRow() - 1 > 0 && myPos.getColumn() + 1 <= 8
-                    && board.getPiece(new ChessPosition(myPos.getRow() - 1, myPos.getColumn() + 1)) != null
-                    && board.getPiece(new ChessPosition(myPos.getRow() - 1, myPos.getColumn() + 1)).getTeamColor() != piece.getTeamColor()) {
-                if (myPos.getRow() - 1 == 1) {
-                    moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() - 1, myPos.getColumn() + 1), PieceType.BISHOP));
-                    moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() - 1, myPos.getColumn() + 1), PieceType.ROOK));
-                    moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() - 1, myPos.getColumn() + 1), PieceType.QUEEN));
-                    moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() - 1, myPos.getColumn() + 1), PieceType.KNIGHT));
-                } else {
-                    moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() - 1, myPos.getColumn() + 1), null));
-                }
-            }
-            if (myPos.getRow() - 1 > 0 && myPos.getColumn() - 1 > 0
-                    && board.getPiece(new ChessPosition(myPos.getRow() - 1, myPos.getColumn() - 1)) != null
-                    && board.getPiece(new ChessPosition(myPos.getRow() - 1, myPos.getColumn() - 1)).getTeamColor() != piece.getTeamColor()) {
-                if (myPos.getRow() - 1 == 1) {
-                    moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() - 1, myPos.getColumn() - 1), PieceType.BISHOP));
-                    moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() - 1, myPos.getColumn() - 1), PieceType.ROOK));
-                    moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() - 1, myPos.getColumn() - 1), PieceType.QUEEN));
-                    moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() - 1, myPos.getColumn() - 1), PieceType.KNIGHT));
-                } else {
-                    moves.add(new ChessMove(myPos, new ChessPosition(myPos.getRow() - 1, myPos.getColumn() - 1), null));
-                }
-            }
-        }
-        return moves;
+        var moves = new MoveList(32);
+        MoveGenerator.pseudoLegal(board, ChessBoard.square(myPos), moves);
+        return moves.toChessMoves();
     }
 
     @Override
@@ -367,17 +97,76 @@ public class ChessPiece {
                 ']';
     }
 
+    /**
+     * @return the bitboard index (0-11) of this piece, see {@link ChessBoard#pieceIndex}
+     */
+    int index() {
+        return pieceColor.ordinal() * 6 + type.ordinal();
+    }
+
+    /**
+     * @return true if both are empty or hold the same color and type; canonical pieces
+     * match on identity, anything built with the constructor falls back to the ordinals
+     */
+    static boolean same(ChessPiece a, ChessPiece b) {
+        return a == b || (a != null && b != null && a.index() == b.index());
+    }
+
     @Override
     public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
-        ChessPiece that = (ChessPiece) o;
-        return pieceColor == that.pieceColor && type == that.type;
+        return index() == ((ChessPiece) o).index();
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(pieceColor, type);
+        return index();
+    }
+
+    /**
+     * Writes the same {"pieceColor":..,"type":..} object the reflective adapter did, but
+     * reads back through {@link #of} so stored games share the 12 canonical pieces
+     */
+    static class Adapter extends TypeAdapter<ChessPiece> {
+
+        @Override
+        public void write(JsonWriter out, ChessPiece piece) throws IOException {
+            if (piece == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("pieceColor").value(piece.pieceColor.name());
+            out.name("type").value(piece.type.name());
+            out.endObject();
+        }
+
+        @Override
+        public ChessPiece read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            ChessGame.TeamColor color = null;
+            PieceType type = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "pieceColor" -> color = ChessGame.TeamColor.valueOf(in.nextString());
+                    case "type" -> type = PieceType.valueOf(in.nextString());
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            if (color == null || type == null) {
+                throw new IOException("Chess piece needs both pieceColor and type");
+            }
+            return of(color, type);
+        }
     }
 }
@@ -0,0 +1,157 @@
+package chess;
+
+/**
+ * Static evaluation for the search, in centipawns from the point of view of the team
+ * to move: material plus piece-square tables, blended between a middlegame and an
+ * endgame score by how much material is left.
+ * <p>
+ * The blend inputs are kept up to date by {@link ChessBoard} as pieces are added and
+ * removed, using the {@link #MIDDLEGAME}, {@link #ENDGAME} and {@link #PHASE} tables
+ * below, so evaluating a position is a couple of multiplications. The full rescan in
+ * {@link #rescan} only runs as an assertion.
+ */
+final class Evaluation {
+
+    /** Indexed by {@link ChessPiece.PieceType} ordinal; the king is never traded so it scores 0 */
+    static final int[] PIECE_VALUE = {0, 900, 330, 320, 500, 100};
+    /** How much each piece type counts towards the middlegame, by type ordinal */
+    static final int[] PHASE = {0, 4, 1, 1, 2, 0};
+    /** The phase of the starting material; anything at or above it is pure middlegame */
+    static final int MAX_PHASE = 24;
+
+    /** [piece index][square]: material plus placement, positive for white and negative for black */
+    static final int[][] MIDDLEGAME = new int[12][64];
+    static final int[][] ENDGAME = new int[12][64];
+
+//    Placement tables from white's side, written the way a board is drawn: a8 first, h1 last
+    private static final int[] KING_MIDDLEGAME = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20
+    };
+    private static final int[] KING_ENDGAME = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50
+    };
+    private static final int[] QUEEN = {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20
+    };
+    private static final int[] BISHOP = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20
+    };
+    private static final int[] KNIGHT = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50
+    };
+    private static final int[] ROOK = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            0, 0, 0, 5, 5, 0, 0, 0
+    };
+    private static final int[] PAWN_MIDDLEGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0
+    };
+    private static final int[] PAWN_ENDGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            80, 80, 80, 80, 80, 80, 80, 80,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            30, 30, 30, 30, 30, 30, 30, 30,
+            20, 20, 20, 20, 20, 20, 20, 20,
+            10, 10, 10, 10, 10, 10, 10, 10,
+            10, 10, 10, 10, 10, 10, 10, 10,
+            0, 0, 0, 0, 0, 0, 0, 0
+    };
+
+    static {
+        int[][] middlegame = {KING_MIDDLEGAME, QUEEN, BISHOP, KNIGHT, ROOK, PAWN_MIDDLEGAME};
+        int[][] endgame = {KING_ENDGAME, QUEEN, BISHOP, KNIGHT, ROOK, PAWN_ENDGAME};
+        for (var type : ChessPiece.PieceType.values()) {
+            int t = type.ordinal();
+            int white = ChessBoard.pieceIndex(ChessGame.TeamColor.WHITE, type);
+            int black = ChessBoard.pieceIndex(ChessGame.TeamColor.BLACK, type);
+            for (int square = 0; square < 64; square++) {
+//                The tables list a8 first, so white reads them with the rank flipped and black,
+//                seeing the board from the other side, reads them as they are
+                MIDDLEGAME[white][square] = PIECE_VALUE[t] + middlegame[t][square ^ 56];
+                ENDGAME[white][square] = PIECE_VALUE[t] + endgame[t][square ^ 56];
+                MIDDLEGAME[black][square] = -PIECE_VALUE[t] - middlegame[t][square];
+                ENDGAME[black][square] = -PIECE_VALUE[t] - endgame[t][square];
+            }
+        }
+    }
+
+    private Evaluation() {
+    }
+
+    static int evaluate(ChessBoard board, ChessGame.TeamColor toMove) {
+        assert rescan(board);
+        int phase = Math.min(board.phase(), MAX_PHASE);
+        int score = (board.middlegameScore() * phase + board.endgameScore() * (MAX_PHASE - phase)) / MAX_PHASE;
+        return toMove == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+
+    /**
+     * Recomputes the board's running scores from every square and checks they agree.
+     * Only called from an assertion, since it is exactly the work the running scores save.
+     */
+    static boolean rescan(ChessBoard board) {
+        int middlegame = 0;
+        int endgame = 0;
+        int phase = 0;
+        for (int square = 0; square < 64; square++) {
+            var piece = board.getPiece(square);
+            if (piece != null) {
+                middlegame += MIDDLEGAME[piece.index()][square];
+                endgame += ENDGAME[piece.index()][square];
+                phase += PHASE[piece.getPieceType().ordinal()];
+            }
+        }
+        if (middlegame != board.middlegameScore() || endgame != board.endgameScore() || phase != board.phase()) {
+            throw new AssertionError("Running evaluation is out of step with the board");
+        }
+        return true;
+    }
+}
@@ -0,0 +1,128 @@
+package chess;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation. This engine does not play
+ * castling or en passant, so those two fields are accepted but ignored when reading
+ * and always written as "-". The fullmove number is not tracked either.
+ */
+public final class Fen {
+
+    public static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1";
+
+    private Fen() {
+    }
+
+    /**
+     * @param fen a FEN string; only the placement field is required, the side to move
+     *            defaults to white
+     * @return a new game set up in that position
+     * @throws IllegalArgumentException if the FEN is malformed
+     */
+    public static ChessGame parse(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        var board = new ChessBoard();
+        String[] ranks = fields[0].split("/");
+        if (ranks.length != 8) {
+            throw new IllegalArgumentException("Expected 8 ranks in FEN: " + fen);
+        }
+        for (int i = 0; i < 8; i++) {
+            int row = 8 - i;
+            int col = 1;
+            for (char c : ranks[i].toCharArray()) {
+                if (c >= '1' && c <= '8') {
+                    col += c - '0';
+                } else {
+                    var type = pieceType(c);
+                    if (type == null || col > 8) {
+                        throw new IllegalArgumentException("Bad rank '" + ranks[i] + "' in FEN: " + fen);
+                    }
+                    var color = Character.isUpperCase(c) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+                    board.addPiece(ChessPosition.of(row, col++), ChessPiece.of(color, type));
+                }
+            }
+            if (col != 9) {
+                throw new IllegalArgumentException("Bad rank '" + ranks[i] + "' in FEN: " + fen);
+            }
+        }
+        var game = new ChessGame();
+        game.setBoard(board);
+        if (fields.length > 1) {
+            switch (fields[1]) {
+                case "w" -> game.setTeamTurn(ChessGame.TeamColor.WHITE);
+                case "b" -> game.setTeamTurn(ChessGame.TeamColor.BLACK);
+                default -> throw new IllegalArgumentException("Bad side to move in FEN: " + fen);
+            }
+        } else {
+            game.setTeamTurn(ChessGame.TeamColor.WHITE);
+        }
+        if (fields.length > 4) {
+            int clock;
+            try {
+                clock = Integer.parseInt(fields[4]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad halfmove clock in FEN: " + fen, e);
+            }
+            if (clock < 0) {
+                throw new IllegalArgumentException("Bad halfmove clock in FEN: " + fen);
+            }
+            game.setHalfmoveClock(clock);
+        }
+        return game;
+    }
+
+    /**
+     * @return the game's position as a FEN string
+     */
+    public static String of(ChessGame game) {
+        var sb = new StringBuilder();
+        var board = game.getBoard();
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int col = 1; col <= 8; col++) {
+                var piece = board.getPiece(ChessPosition.of(row, col));
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    sb.append(empty);
+                    empty = 0;
+                }
+                sb.append(pieceChar(piece));
+            }
+            if (empty > 0) {
+                sb.append(empty);
+            }
+            if (row > 1) {
+                sb.append('/');
+            }
+        }
+        sb.append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? " w" : " b");
+        sb.append(" - - ").append(game.halfmoveClock).append(" 1");
+        return sb.toString();
+    }
+
+    static char pieceChar(ChessPiece piece) {
+        char c = switch (piece.getPieceType()) {
+            case KING -> 'k';
+            case QUEEN -> 'q';
+            case BISHOP -> 'b';
+            case KNIGHT -> 'n';
+            case ROOK -> 'r';
+            case PAWN -> 'p';
+        };
+        return piece.getTeamColor() == ChessGame.TeamColor.WHITE ? Character.toUpperCase(c) : c;
+    }
+
+    static ChessPiece.PieceType pieceType(char c) {
+        return switch (Character.toLowerCase(c)) {
+            case 'k' -> ChessPiece.PieceType.KING;
+            case 'q' -> ChessPiece.PieceType.QUEEN;
+            case 'b' -> ChessPiece.PieceType.BISHOP;
+            case 'n' -> ChessPiece.PieceType.KNIGHT;
+            case 'r' -> ChessPiece.PieceType.ROOK;
+            case 'p' -> ChessPiece.PieceType.PAWN;
+            default -> null;
+        };
+    }
+}
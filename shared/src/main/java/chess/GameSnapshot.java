@@ -0,0 +1,100 @@
+package chess;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * An immutable copy of a game's position taken with {@link ChessGame#snapshot()}. The
+ * board is packed four bits to a square into four longs, so a snapshot is cheap to take
+ * and can be read from any number of threads while the game it came from keeps moving.
+ */
+public final class GameSnapshot {
+
+//    Sixteen squares per long, square 0 (a1) in the low nibble of squares[0]; 0 is an empty
+//    square, anything else is the piece index plus one
+    private final long[] squares = new long[4];
+    private final ChessGame.TeamColor teamTurn;
+    private final ChessGame.GameStatus status;
+    private final boolean gameFinished;
+    private final int halfmoveClock;
+    private final long[] history;
+    private final long key;
+
+    GameSnapshot(ChessGame game) {
+        var board = game.getBoard();
+        for (int square = 0; square < 64; square++) {
+            var piece = board.getPiece(square);
+            if (piece != null) {
+                squares[square >>> 4] |= (long) (piece.index() + 1) << ((square & 15) * 4);
+            }
+        }
+        teamTurn = game.getTeamTurn();
+        status = game.getStatus();
+        gameFinished = game.isGameFinished();
+        halfmoveClock = game.halfmoveClock;
+        history = Arrays.copyOf(game.history, game.historySize);
+        key = game.key();
+    }
+
+    /**
+     * @return the piece on a square, or null if it is empty
+     */
+    public ChessPiece getPiece(ChessPosition position) {
+        return getPiece(ChessBoard.square(position));
+    }
+
+    ChessPiece getPiece(int square) {
+        int code = (int) (squares[square >>> 4] >>> ((square & 15) * 4)) & 0xF;
+        return code == 0 ? null : ChessPiece.of(code - 1);
+    }
+
+    public ChessGame.TeamColor getTeamTurn() {
+        return teamTurn;
+    }
+
+    public ChessGame.GameStatus getStatus() {
+        return status;
+    }
+
+    public boolean isGameFinished() {
+        return gameFinished;
+    }
+
+    /**
+     * @return the Zobrist key of the position, see {@link ChessGame#hashCode()}
+     */
+    public long key() {
+        return key;
+    }
+
+    /**
+     * Gets the valid moves of a piece in this position, worked out on a private copy so
+     * the snapshot itself is never touched
+     *
+     * @return the moves, or null if the square is empty
+     */
+    public Collection<ChessMove> validMoves(ChessPosition position) {
+        return toGame().validMoves(position);
+    }
+
+    /**
+     * @return a new, independent game in this position, with its status and repetition
+     * history, for callers that need to serialize it or analyze it further
+     */
+    public ChessGame toGame() {
+        var board = new ChessBoard();
+        for (int square = 0; square < 64; square++) {
+            var piece = getPiece(square);
+            if (piece != null) {
+                board.setPiece(square, piece);
+            }
+        }
+        var game = new ChessGame(board, teamTurn);
+        game.status = status;
+        game.gameFinished = gameFinished;
+        game.halfmoveClock = halfmoveClock;
+        game.history = Arrays.copyOf(history, Math.max(16, history.length));
+        game.historySize = history.length;
+        return game;
+    }
+}
@@ -0,0 +1,88 @@
+package chess;
+
+/**
+ * Static helpers for the packed int move encoding used inside the engine.
+ * <pre>
+ * bits  0-5   from square (0 for a1 through 63 for h8)
+ * bits  6-11  to square
+ * bits 12-14  promotion piece: 0 for none, otherwise PieceType ordinal + 1
+ * bit  15     capture
+ * bit  16     pawn double push
+ * </pre>
+ * {@link ChessMove} objects are only created from these at the public API boundary.
+ */
+final class Move {
+
+    static final int NONE = 0;
+    static final int CAPTURE = 1 << 15;
+    static final int DOUBLE_PUSH = 1 << 16;
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private Move() {
+    }
+
+    static int of(int from, int to, int flags) {
+        return from | (to << 6) | flags;
+    }
+
+    static int of(int from, int to, ChessPiece.PieceType promotion, int flags) {
+        return from | (to << 6) | ((promotion == null ? 0 : promotion.ordinal() + 1) << 12) | flags;
+    }
+
+    static int from(int move) {
+        return move & 63;
+    }
+
+    static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    static ChessPiece.PieceType promotion(int move) {
+        int promotion = (move >>> 12) & 7;
+        return promotion == 0 ? null : TYPES[promotion - 1];
+    }
+
+    static boolean isPromotion(int move) {
+        return (move & (7 << 12)) != 0;
+    }
+
+    static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    /**
+     * @return true if the two moves go between the same squares with the same promotion,
+     * ignoring flags
+     */
+    static boolean sameMove(int a, int b) {
+        return ((a ^ b) & 0x7FFF) == 0;
+    }
+
+    static ChessPosition position(int square) {
+        return ChessPosition.of(square);
+    }
+
+    static ChessMove toChessMove(int move) {
+        return new ChessMove(position(from(move)), position(to(move)), promotion(move));
+    }
+
+    /**
+     * @return the packed form of a public move, without flags
+     */
+    static int encode(ChessMove move) {
+        return of(ChessBoard.square(move.getStartPosition()), ChessBoard.square(move.getEndPosition()),
+                move.getPromotionPiece(), NONE);
+    }
+
+    static String toString(int move) {
+        var promotion = promotion(move);
+        return squareName(from(move)) + squareName(to(move))
+                + (promotion == null ? "" : promotion == ChessPiece.PieceType.KNIGHT ? "n"
+                : promotion.toString().substring(0, 1).toLowerCase());
+    }
+
+    static String squareName(int square) {
+        return "" + (char) ('a' + (square & 7)) + (char) ('1' + (square >>> 3));
+    }
+}
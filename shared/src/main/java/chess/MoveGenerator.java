@@ -0,0 +1,154 @@
+package chess;
+
+/**
+ * Generates packed int moves (see {@link Move}) into a caller-owned {@link MoveList}
+ * using the {@link Attacks} tables and the board's bitboards.
+ */
+final class MoveGenerator {
+
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT
+    };
+    private static final long RANK_1 = 0x00000000000000FFL;
+    private static final long RANK_8 = 0xFF00000000000000L;
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Appends every move the piece on a square could make, without regard to whether
+     * it leaves its own king in danger
+     */
+    static void pseudoLegal(ChessBoard board, int square, MoveList moves) {
+        generate(board, square, board.getPiece(square), -1L, moves);
+    }
+
+    /**
+     * Appends only the legal moves of the given team's pieces that stand on a square in
+     * {@code from}. Checkers and pinned pieces are worked out once up front, and each
+     * piece's targets are masked by them, so nothing has to be played out to be tested.
+     */
+    static void legal(ChessBoard board, ChessGame.TeamColor color, long from, MoveList moves) {
+        legal(board, color, from, -1L, moves);
+    }
+
+    /**
+     * Same as {@link #legal(ChessBoard, ChessGame.TeamColor, long, MoveList)}, but only
+     * for moves that land on a square in {@code to}; passing the enemy pieces gives just
+     * the captures
+     */
+    static void legal(ChessBoard board, ChessGame.TeamColor color, long from, long to, MoveList moves) {
+        long own = board.pieces(color);
+        int king = board.kingSquare(color);
+        if (king < 0) {
+//            No king to expose, so every pseudo-legal move stands
+            long pieces = own & from;
+            while (pieces != 0) {
+                int square = Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+                generate(board, square, board.getPiece(square), to, moves);
+            }
+            return;
+        }
+        var enemyColor = color.opponent();
+        long occupied = board.occupied();
+        long enemy = board.pieces(enemyColor);
+        long kingBit = 1L << king;
+        long checkers = board.attackersTo(king, occupied) & enemy;
+
+        if ((from & kingBit) != 0) {
+            long targets = Attacks.KING[king] & ~own & to;
+            long withoutKing = occupied ^ kingBit;
+            while (targets != 0) {
+                int target = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                if (!board.isSquareAttacked(target, enemyColor, withoutKing)) {
+                    moves.add(Move.of(king, target, (enemy & (1L << target)) != 0 ? Move.CAPTURE : Move.NONE));
+                }
+            }
+        }
+        if (Long.bitCount(checkers) > 1) {
+            return;
+        }
+//        In check, everything else must capture the checker or step in front of it
+        long checkMask = checkers == 0 ? to : to & (checkers | Attacks.BETWEEN[king][Long.numberOfTrailingZeros(checkers)]);
+        long pinned = pinned(board, king, enemyColor, own, occupied);
+        long pieces = own & from & ~kingBit;
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            long mask = checkMask;
+            if ((pinned & (1L << square)) != 0) {
+                mask &= Attacks.LINE[king][square];
+            }
+            generate(board, square, board.getPiece(square), mask, moves);
+        }
+    }
+
+    /**
+     * @return the team's pieces that are the only thing between their king and an enemy slider
+     */
+    private static long pinned(ChessBoard board, int king, ChessGame.TeamColor enemyColor, long own, long occupied) {
+        long enemy = board.pieces(enemyColor);
+        long queens = board.pieces(enemyColor, ChessPiece.PieceType.QUEEN);
+        long snipers = (Attacks.rook(king, enemy) & (board.pieces(enemyColor, ChessPiece.PieceType.ROOK) | queens))
+                | (Attacks.bishop(king, enemy) & (board.pieces(enemyColor, ChessPiece.PieceType.BISHOP) | queens));
+        long pinned = 0L;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long between = Attacks.BETWEEN[king][sniper] & occupied;
+            if (Long.bitCount(between) == 1 && (between & own) != 0) {
+                pinned |= between;
+            }
+        }
+        return pinned;
+    }
+
+    private static void generate(ChessBoard board, int square, ChessPiece piece, long mask, MoveList moves) {
+        var color = piece.getTeamColor();
+        long enemy = board.pieces(color.opponent());
+        if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+            pawnMoves(board, square, color, enemy, mask, moves);
+            return;
+        }
+        long targets = Attacks.of(piece.getPieceType(), square, board.occupied()) & ~board.pieces(color);
+        addMoves(moves, square, targets & mask, enemy);
+    }
+
+    private static void pawnMoves(ChessBoard board, int square, ChessGame.TeamColor color, long enemy, long mask,
+                                  MoveList moves) {
+        boolean white = color == ChessGame.TeamColor.WHITE;
+        long empty = ~board.occupied();
+        long targets = Attacks.PAWN[color.ordinal()][square] & enemy;
+        int single = white ? square + 8 : square - 8;
+        if (single >= 0 && single < 64 && (empty & (1L << single)) != 0) {
+            targets |= 1L << single;
+            int twice = white ? square + 16 : square - 16;
+            if (square >>> 3 == (white ? 1 : 6) && (empty & mask & (1L << twice)) != 0) {
+                moves.add(Move.of(square, twice, Move.DOUBLE_PUSH));
+            }
+        }
+        targets &= mask;
+        long promotionRank = white ? RANK_8 : RANK_1;
+        addMoves(moves, square, targets & ~promotionRank, enemy);
+        long promotions = targets & promotionRank;
+        while (promotions != 0) {
+            int to = Long.numberOfTrailingZeros(promotions);
+            promotions &= promotions - 1;
+            int flags = (enemy & (1L << to)) != 0 ? Move.CAPTURE : Move.NONE;
+            for (var promotion : PROMOTIONS) {
+                moves.add(Move.of(square, to, promotion, flags));
+            }
+        }
+    }
+
+    private static void addMoves(MoveList moves, int from, long targets, long enemy) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            moves.add(Move.of(from, to, (enemy & (1L << to)) != 0 ? Move.CAPTURE : Move.NONE));
+        }
+    }
+}
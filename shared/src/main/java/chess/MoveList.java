@@ -0,0 +1,73 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A growable buffer of packed int moves (see {@link Move}). Meant to be cleared and
+ * reused rather than reallocated, so move generation does not create garbage.
+ */
+final class MoveList {
+
+    private int[] moves;
+    private int size;
+
+    MoveList() {
+        this(64);
+    }
+
+    MoveList(int capacity) {
+        moves = new int[capacity];
+    }
+
+    void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    int get(int index) {
+        return moves[index];
+    }
+
+    void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Drops every move from {@code from} onward, so a caller can append to a shared
+     * buffer and roll back to where it started.
+     */
+    void truncate(int from) {
+        size = from;
+    }
+
+    /**
+     * @return the moves as public {@link ChessMove} objects, for the API boundary
+     */
+    Collection<ChessMove> toChessMoves() {
+        return toChessMoves(0);
+    }
+
+    Collection<ChessMove> toChessMoves(int from) {
+        var result = new ArrayList<ChessMove>(size - from);
+        for (int i = from; i < size; i++) {
+            result.add(Move.toChessMove(moves[i]));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,107 @@
+package chess;
+
+/**
+ * Decides the order the search tries moves in, since alpha-beta cuts off most when the
+ * best move comes first. Moves are scored into a plain int array beside the move list,
+ * and {@link #next} picks the best remaining one each time it is called. A node that
+ * cuts off early never pays to sort the moves it doesn't reach.
+ * <p>
+ * Order: the hash move, then captures by most valuable victim and least valuable
+ * attacker, then queen promotions, then the two killer moves of the ply, then the other
+ * quiet moves by history score. One instance belongs to one search thread.
+ */
+final class MoveOrdering {
+
+    private static final int HASH_MOVE = 1 << 30;
+    private static final int CAPTURE = 1 << 28;
+    private static final int QUEEN_PROMOTION = CAPTURE - 1;
+    private static final int FIRST_KILLER = 1 << 27;
+    private static final int SECOND_KILLER = FIRST_KILLER - 1;
+//    History scores are halved whenever one reaches this, keeping them below the killers
+    private static final int HISTORY_LIMIT = 1 << 24;
+    /** Victim and attacker rank by piece type ordinal: pawn lowest, king highest */
+    private static final int[] RANK = {6, 5, 3, 2, 4, 1};
+
+    private final int[][] scores = new int[Search.MAX_PLY][256];
+    private final int[][] killers = new int[Search.MAX_PLY][2];
+    private final int[][] history = new int[12][64];
+
+    /**
+     * Scores the moves of one ply ready for {@link #next}
+     */
+    void score(ChessBoard board, MoveList moves, int ply, int hashMove) {
+        if (scores[ply].length < moves.size()) {
+            scores[ply] = new int[moves.size()];
+        }
+        int[] plyScores = scores[ply];
+        int[] plyKillers = killers[ply];
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            var piece = board.getPiece(Move.from(move));
+            int score;
+            if (move == hashMove) {
+                score = HASH_MOVE;
+            } else if (Move.isCapture(move)) {
+                var victim = board.getPiece(Move.to(move));
+                score = CAPTURE + RANK[victim.getPieceType().ordinal()] * 8 - RANK[piece.getPieceType().ordinal()];
+            } else if (Move.promotion(move) == ChessPiece.PieceType.QUEEN) {
+                score = QUEEN_PROMOTION;
+            } else if (move == plyKillers[0]) {
+                score = FIRST_KILLER;
+            } else if (move == plyKillers[1]) {
+                score = SECOND_KILLER;
+            } else {
+                score = history[piece.index()][Move.to(move)];
+            }
+            plyScores[i] = score;
+        }
+    }
+
+    /**
+     * Swaps the best scoring move from {@code index} onward into {@code index}
+     *
+     * @return that move
+     */
+    int next(MoveList moves, int ply, int index) {
+        int[] plyScores = scores[ply];
+        int best = index;
+        for (int i = index + 1; i < moves.size(); i++) {
+            if (plyScores[i] > plyScores[best]) {
+                best = i;
+            }
+        }
+        int move = moves.get(best);
+        if (best != index) {
+            moves.set(best, moves.get(index));
+            moves.set(index, move);
+            int score = plyScores[best];
+            plyScores[best] = plyScores[index];
+            plyScores[index] = score;
+        }
+        return move;
+    }
+
+    /**
+     * Records a quiet move that caused a beta cutoff, as a killer for its ply and in the
+     * history table, weighted towards cutoffs found with more depth left
+     */
+    void cutoff(ChessBoard board, int move, int ply, int depth) {
+        if (Move.isCapture(move)) {
+            return;
+        }
+        int[] plyKillers = killers[ply];
+        if (plyKillers[0] != move) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+        int[] pieceHistory = history[board.getPiece(Move.from(move)).index()];
+        pieceHistory[Move.to(move)] += depth * depth;
+        if (pieceHistory[Move.to(move)] >= HISTORY_LIMIT) {
+            for (int[] row : history) {
+                for (int square = 0; square < 64; square++) {
+                    row[square] /= 2;
+                }
+            }
+        }
+    }
+}
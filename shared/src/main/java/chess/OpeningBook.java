@@ -0,0 +1,353 @@
+package chess;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * A read-only opening book: for positions seen in a corpus of games, the moves played
+ * from them and how often. The file is an 8-byte header followed by 16-byte entries
+ * (Zobrist key, packed move, weight) sorted by key and then by falling weight. It is
+ * memory-mapped rather than read, so processes using the same book share its pages
+ * through the OS cache, and a lookup is a binary search over the mapping that allocates
+ * nothing.
+ * <p>
+ * Build one with {@link Builder}, or from the command line:
+ * {@code java chess.OpeningBook --out <book> [--plies n] [--min-count n] <pgn>...}
+ */
+public final class OpeningBook {
+
+//    "CHESSBK1"
+    static final long MAGIC = 0x4348455353424B31L;
+    private static final int HEADER = 8;
+    private static final int ENTRY = 16;
+
+    private final MappedByteBuffer buffer;
+    private final int size;
+
+    private OpeningBook(MappedByteBuffer buffer, int size) {
+        this.buffer = buffer;
+        this.size = size;
+    }
+
+    /**
+     * Maps a book file. The mapping stays valid after this returns; there is nothing to close
+     *
+     * @throws IOException if the file can't be read or isn't an opening book
+     */
+    public static OpeningBook open(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER || length > Integer.MAX_VALUE || (length - HEADER) % ENTRY != 0) {
+                throw new IOException("Not an opening book: " + path);
+            }
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            if (buffer.getLong(0) != MAGIC) {
+                throw new IOException("Not an opening book: " + path);
+            }
+            return new OpeningBook(buffer, (int) ((length - HEADER) / ENTRY));
+        }
+    }
+
+    /**
+     * @return the number of (position, move) entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the most played book move in the game's position, or null if the position
+     * isn't in the book
+     */
+    public ChessMove bestMove(ChessGame game) {
+        int move = probe(game);
+        return move == 0 ? null : Move.toChessMove(move);
+    }
+
+    /**
+     * Picks a book move at random, each with a chance in proportion to how often it was
+     * played, so a computer opponent doesn't always open the same way
+     *
+     * @return the move, or null if the position isn't in the book
+     */
+    public ChessMove pickMove(ChessGame game, RandomGenerator random) {
+        long key = game.key();
+        int first = find(key);
+        if (first < 0) {
+            return null;
+        }
+        var legal = game.legalMoves(game.getTeamTurn());
+        long total = 0;
+        for (int i = first; i < size && key(i) == key; i++) {
+            if (legal(legal, move(i)) != 0) {
+                total += weight(i);
+            }
+        }
+        if (total == 0) {
+            return null;
+        }
+        long pick = random.nextLong(total);
+        for (int i = first; ; i++) {
+            int move = legal(legal, move(i));
+            if (move != 0 && (pick -= weight(i)) < 0) {
+                return Move.toChessMove(move);
+            }
+        }
+    }
+
+    /**
+     * @return the most played book move that is legal in the game's position, as the
+     * engine's packed move, or 0 if there is none
+     */
+    int probe(ChessGame game) {
+        long key = game.key();
+        int first = find(key);
+        if (first < 0) {
+            return 0;
+        }
+        var legal = game.legalMoves(game.getTeamTurn());
+//        A different position with the same key could have moves stored that aren't legal here
+        for (int i = first; i < size && key(i) == key; i++) {
+            int move = legal(legal, move(i));
+            if (move != 0) {
+                return move;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return the index of the first entry with the key, or -1 if there is none
+     */
+    int find(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (key(middle) < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low < size && key(low) == key ? low : -1;
+    }
+
+    long key(int index) {
+        return buffer.getLong(HEADER + index * ENTRY);
+    }
+
+    int move(int index) {
+        return buffer.getInt(HEADER + index * ENTRY + 8);
+    }
+
+    int weight(int index) {
+        return buffer.getInt(HEADER + index * ENTRY + 12);
+    }
+
+    private static int legal(MoveList legal, int move) {
+        for (int i = 0; i < legal.size(); i++) {
+            if (Move.sameMove(legal.get(i), move)) {
+                return legal.get(i);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Collects the opening moves of games, given as PGN, and writes them out as a book.
+     * Each game is followed from the starting position for a number of plies. Since this
+     * engine doesn't play castling or en passant, a game stops counting at the first
+     * move it can't follow, and so do games that were set up from a FEN tag.
+     */
+    public static final class Builder {
+
+        private final int plies;
+        private final int minCount;
+        private final Map<Long, Map<Integer, Integer>> counts = new HashMap<>();
+        private int games;
+
+        /**
+         * @param plies    how many half-moves of each game to take
+         * @param minCount how many times a move must have been played from a position to
+         *                 be kept, so one-off oddities stay out of the book
+         */
+        public Builder(int plies, int minCount) {
+            if (plies < 1 || minCount < 1) {
+                throw new IllegalArgumentException("plies and minCount must be positive");
+            }
+            this.plies = plies;
+            this.minCount = minCount;
+        }
+
+        /**
+         * @return the number of games read so far
+         */
+        public int games() {
+            return games;
+        }
+
+        /**
+         * Reads every game in a PGN stream. Tags, comments, variations, move numbers and
+         * annotation glyphs are skipped; only the main line is used
+         */
+        public void addPgn(Reader reader) throws IOException {
+            var game = new ChessGame();
+            int ply = 0;
+            boolean following = true;
+            var token = new StringBuilder();
+            int c;
+            do {
+                c = reader.read();
+//                The end of the stream ends the last token like any other delimiter
+                if (c == -1 || c == '[' || c == '{' || c == ';' || c == '(' || Character.isWhitespace(c)) {
+                    if (!token.isEmpty()) {
+                        String text = token.toString();
+                        token.setLength(0);
+                        if (isResult(text)) {
+                            games++;
+                            game = new ChessGame();
+                            ply = 0;
+                            following = true;
+                        } else if (following && ply < plies) {
+                            int move = move(game, text);
+                            if (move == 0) {
+                                following = false;
+                            } else if (move > 0) {
+                                counts.computeIfAbsent(game.key(), key -> new HashMap<>()).merge(move, 1, Integer::sum);
+                                game.makeMove(move);
+                                ply++;
+                            }
+                        }
+                    }
+                    if (c == '[') {
+                        String tag = skip(reader, ']');
+                        if (tag.startsWith("FEN ") || tag.startsWith("SetUp ")) {
+                            following = false;
+                        }
+                    } else if (c == '{') {
+                        skip(reader, '}');
+                    } else if (c == ';') {
+                        skip(reader, '\n');
+                    } else if (c == '(') {
+                        skipVariation(reader);
+                    }
+                } else {
+                    token.append((char) c);
+                }
+            } while (c != -1);
+        }
+
+        /**
+         * @return the move a movetext token plays, -1 if it plays none (a move number or
+         * glyph), or 0 if it can't be followed
+         */
+        private static int move(ChessGame game, String token) {
+            int start = 0;
+            while (start < token.length() && Character.isDigit(token.charAt(start))) {
+                start++;
+            }
+            if (start > 0 && start < token.length() && token.charAt(start) == '.') {
+                while (start < token.length() && token.charAt(start) == '.') {
+                    start++;
+                }
+            } else {
+                start = 0;
+            }
+            if (start == token.length() || token.charAt(start) == '$') {
+                return -1;
+            }
+            return San.parse(game, token.substring(start));
+        }
+
+        private static boolean isResult(String token) {
+            return token.equals("1-0") || token.equals("0-1") || token.equals("1/2-1/2") || token.equals("*");
+        }
+
+        private static String skip(Reader reader, char end) throws IOException {
+            var text = new StringBuilder();
+            int c;
+            while ((c = reader.read()) != -1 && c != end) {
+                text.append((char) c);
+            }
+            return text.toString();
+        }
+
+        private static void skipVariation(Reader reader) throws IOException {
+            int depth = 1;
+            int c;
+            while (depth > 0 && (c = reader.read()) != -1) {
+                if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                } else if (c == '{') {
+                    skip(reader, '}');
+                }
+            }
+        }
+
+        /**
+         * Writes the book, replacing the file if it exists
+         *
+         * @return the number of entries written
+         */
+        public int write(Path path) throws IOException {
+            var entries = new ArrayList<long[]>();
+            counts.forEach((key, moves) -> moves.forEach((move, count) -> {
+                if (count >= minCount) {
+                    entries.add(new long[]{key, move, count});
+                }
+            }));
+            entries.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(b[2], a[2]));
+            try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+                out.writeLong(MAGIC);
+                for (long[] entry : entries) {
+                    out.writeLong(entry[0]);
+                    out.writeInt((int) entry[1]);
+                    out.writeInt((int) entry[2]);
+                }
+            }
+            return entries.size();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path out = null;
+        int plies = 20;
+        int minCount = 2;
+        var inputs = new ArrayList<Path>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--out" -> out = Path.of(args[++i]);
+                case "--plies" -> plies = Integer.parseInt(args[++i]);
+                case "--min-count" -> minCount = Integer.parseInt(args[++i]);
+                default -> inputs.add(Path.of(args[i]));
+            }
+        }
+        if (out == null || inputs.isEmpty()) {
+            System.err.println("Usage: java chess.OpeningBook --out <book> [--plies n] [--min-count n] <pgn>...");
+            return;
+        }
+        var builder = new Builder(plies, minCount);
+        for (var input : inputs) {
+            try (var reader = Files.newBufferedReader(input, StandardCharsets.ISO_8859_1)) {
+                builder.addPgn(reader);
+            }
+        }
+        int entries = builder.write(out);
+        System.out.printf("%,d games, %,d entries written to %s%n", builder.games(), entries, out);
+    }
+}
@@ -0,0 +1,271 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Move-generation correctness and speed tool. Perft counts the leaf nodes of the legal
+ * move tree to a fixed depth; those counts are easy to get wrong and easy to check,
+ * and the time taken is a direct measure of generator throughput.
+ * <p>
+ * Usage: {@code java chess.Perft <depth> [fen] [--divide] [--threads n] [--scaling]} or
+ * {@code java chess.Perft --suite}. With {@code --threads} the count runs on a fork/join
+ * pool of that size; {@code --scaling} times it on 1, 2, 4, ... threads up to that size.
+ */
+public final class Perft {
+
+    /**
+     * A position with its known-correct node counts, where {@code counts[i]} is perft(i + 1)
+     */
+    public record Reference(String name, String fen, long... counts) {
+    }
+
+    /**
+     * Known-correct counts for this ruleset. Where castling and en passant can't come up
+     * within the listed depths these are the standard published figures. The positions
+     * marked "no castling"/"no en passant" can reach those moves, so their counts differ
+     * from the published ones; they were cross-checked against the original
+     * square-by-square generator, which shares this ruleset.
+     */
+    public static final List<Reference> REFERENCES = List.of(
+            new Reference("start (no en passant)", Fen.START, 20, 400, 8902, 197281, 4865351),
+            new Reference("kiwipete (no castling)", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - - 0 1",
+                    46, 1865, 86585, 3499358),
+            new Reference("position 3 (no en passant)", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                    14, 191, 2810, 43087, 671300),
+            new Reference("position 4 (no castling)", "r2q1rk1/pP1p2pp/Q4n2/bbp1p3/Np6/1B3NBn/pPPP1PPP/R3K2R b - - 0 1",
+                    6, 258, 9217, 404404),
+            new Reference("promote out of check", "2K2r2/4P3/8/8/8/8/8/3k4 w - - 0 1",
+                    11, 133, 1442, 19174, 266199, 3821001),
+            new Reference("discovered check", "8/8/1P2K3/8/2n5/1q6/8/5k2 b - - 0 1",
+                    29, 165, 5160, 31961, 1004658),
+            new Reference("promote to give check", "4k3/1P6/8/8/8/8/K7/8 w - - 0 1",
+                    9, 40, 472, 2661, 38983, 217342),
+            new Reference("underpromote to check", "8/P1k5/K7/8/8/8/8/8 w - - 0 1",
+                    6, 27, 273, 1329, 18135, 92683),
+            new Reference("self stalemate", "K1k5/8/P7/8/8/8/8/8 w - - 0 1",
+                    2, 6, 13, 63, 382, 2217),
+            new Reference("stalemate and checkmate", "8/k1P5/8/1K6/8/8/8/8 w - - 0 1",
+                    10, 25, 268, 926, 10857, 43261, 567584),
+            new Reference("double check", "8/8/2k5/5q2/5n2/8/5K2/8 b - - 0 1",
+                    37, 183, 6559, 23527)
+    );
+
+    /** From this depth up, parallel perft splits the second ply as well as the root */
+    public static final int SPLIT_DEPTH = 5;
+
+    private final ChessGame game;
+    private final MoveList[] lists;
+
+    private Perft(ChessGame game, int depth) {
+        this.game = game;
+        lists = new MoveList[Math.max(depth, 1)];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = new MoveList();
+        }
+    }
+
+    /**
+     * @return the number of leaf nodes in the legal move tree of the given depth. The game
+     * is played forward and back in place and is left as it was found
+     */
+    public static long perft(ChessGame game, int depth) {
+        return new Perft(game, depth).count(depth, 0);
+    }
+
+    /**
+     * @return perft(depth - 1) below each legal root move, keyed by the move in coordinate
+     * notation (e.g. "e2e4", "b7b8q"), in generation order
+     */
+    public static Map<String, Long> divide(ChessGame game, int depth) {
+        var perft = new Perft(game, depth);
+        var moves = perft.lists[0];
+        moves.clear();
+        MoveGenerator.legal(game.getBoard(), game.getTeamTurn(), -1L, moves);
+        var result = new LinkedHashMap<String, Long>();
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            game.makeMove(move);
+            result.put(Move.toString(move), depth <= 1 ? 1 : perft.count(depth - 1, 1));
+            game.unmakeMove();
+        }
+        return result;
+    }
+
+    /**
+     * Counts in parallel: the root moves, and below {@link #SPLIT_DEPTH} the replies to
+     * them too, become fork/join tasks, each playing its subtree on its own copy of the
+     * game. The game passed in is not touched.
+     *
+     * @return the same count as {@link #perft(ChessGame, int)}
+     */
+    public static long perft(ChessGame game, int depth, ForkJoinPool pool) {
+        return pool.invoke(new Split(copy(game), depth, depth >= SPLIT_DEPTH ? 2 : 1));
+    }
+
+    private static ChessGame copy(ChessGame game) {
+        return new ChessGame(game.getBoard().clone(), game.getTeamTurn());
+    }
+
+    /**
+     * A node of the top of the tree: forks one task per legal move while there are plies
+     * left to split, and counts the rest of the tree sequentially
+     */
+    private static final class Split extends RecursiveTask<Long> {
+
+        private final ChessGame game;
+        private final int depth;
+        private final int splitPlies;
+
+        Split(ChessGame game, int depth, int splitPlies) {
+            this.game = game;
+            this.depth = depth;
+            this.splitPlies = splitPlies;
+        }
+
+        @Override
+        protected Long compute() {
+            if (splitPlies == 0 || depth <= 1) {
+                return new Perft(game, depth).count(depth, 0);
+            }
+            var moves = new MoveList();
+            MoveGenerator.legal(game.getBoard(), game.getTeamTurn(), -1L, moves);
+            var tasks = new ArrayList<Split>(moves.size());
+            for (int i = 0; i < moves.size(); i++) {
+                var child = copy(game);
+                child.makeMove(moves.get(i));
+                tasks.add(new Split(child, depth - 1, splitPlies - 1));
+            }
+            long nodes = 0;
+            for (var task : invokeAll(tasks)) {
+                nodes += task.join();
+            }
+            return nodes;
+        }
+    }
+
+    private long count(int depth, int ply) {
+        var moves = lists[ply];
+        moves.clear();
+        MoveGenerator.legal(game.getBoard(), game.getTeamTurn(), -1L, moves);
+        if (depth <= 1) {
+            return depth == 1 ? moves.size() : 1;
+        }
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            game.makeMove(moves.get(i));
+            nodes += count(depth - 1, ply + 1);
+            game.unmakeMove();
+        }
+        return nodes;
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.out.println("Usage: Perft <depth> [fen] [--divide] [--threads n] [--scaling] | Perft --suite");
+            return;
+        }
+        if (args[0].equals("--suite")) {
+            System.exit(suite() ? 0 : 1);
+        }
+        int depth = Integer.parseInt(args[0]);
+        boolean divide = false;
+        boolean scaling = false;
+        int threads = 0;
+        var fen = new StringBuilder();
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--divide" -> divide = true;
+                case "--scaling" -> scaling = true;
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                default -> fen.append(args[i]).append(' ');
+            }
+        }
+        var game = Fen.parse(fen.isEmpty() ? Fen.START : fen.toString());
+        if (scaling) {
+            scaling(game, depth, threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+            return;
+        }
+        long start = System.nanoTime();
+        long nodes = 0;
+        if (divide) {
+            for (var entry : divide(game, depth).entrySet()) {
+                System.out.println(entry.getKey() + ": " + entry.getValue());
+                nodes += entry.getValue();
+            }
+            System.out.println();
+        } else if (threads > 0) {
+            var pool = new ForkJoinPool(threads);
+            nodes = perft(game, depth, pool);
+            pool.shutdown();
+        } else {
+            nodes = perft(game, depth);
+        }
+        report(nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Prints nodes/sec for 1, 2, 4, ... threads and then the requested count, with the
+     * speedup over one thread and that speedup per thread
+     */
+    private static void scaling(ChessGame game, int depth, int threads) {
+        var counts = new ArrayList<Integer>();
+        for (int n = 1; n < threads; n *= 2) {
+            counts.add(n);
+        }
+        counts.add(threads);
+//        Untimed, so the single-threaded figure isn't held back by the JIT warming up
+        perft(game, depth);
+        long base = 0;
+        for (int n : counts) {
+            var pool = new ForkJoinPool(n);
+            long start = System.nanoTime();
+            long nodes = perft(game, depth, pool);
+            long elapsed = System.nanoTime() - start;
+            pool.shutdown();
+            long nps = nodesPerSecond(nodes, elapsed);
+            if (n == 1) {
+                base = nps;
+            }
+            double speedup = base == 0 ? 0.0 : (double) nps / base;
+            System.out.printf("threads %2d  nodes %,14d  time %,8d ms  nodes/sec %,13d  speedup %.2fx  efficiency %3.0f%%%n",
+                    n, nodes, elapsed / 1_000_000, nps, speedup, 100 * speedup / n);
+        }
+    }
+
+    private static boolean suite() {
+        boolean passed = true;
+        long totalNodes = 0;
+        long totalTime = 0;
+        for (var reference : REFERENCES) {
+            var game = Fen.parse(reference.fen());
+            int depth = reference.counts().length;
+            long start = System.nanoTime();
+            long nodes = perft(game, depth);
+            long elapsed = System.nanoTime() - start;
+            long expected = reference.counts()[depth - 1];
+            boolean ok = nodes == expected;
+            passed &= ok;
+            totalNodes += nodes;
+            totalTime += elapsed;
+            System.out.printf("%-4s %-28s depth %d: %,d (expected %,d) %,d nodes/sec%n", ok ? "ok" : "FAIL",
+                    reference.name(), depth, nodes, expected, nodesPerSecond(nodes, elapsed));
+        }
+        System.out.println();
+        report(totalNodes, totalTime);
+        return passed;
+    }
+
+    private static void report(long nodes, long nanos) {
+        System.out.printf("Nodes: %,d%nTime: %,d ms%nNodes/sec: %,d%n", nodes, nanos / 1_000_000,
+                nodesPerSecond(nodes, nanos));
+    }
+
+    private static long nodesPerSecond(long nodes, long nanos) {
+        return nanos == 0 ? 0 : nodes * 1_000_000_000L / nanos;
+    }
+}
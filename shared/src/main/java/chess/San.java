@@ -0,0 +1,72 @@
+package chess;
+
+/**
+ * Reads moves in Standard Algebraic Notation ("Nbd7", "exd5", "e8=Q+"), as found in PGN
+ * files. A move is matched against the legal moves of the side to move, so anything
+ * this engine doesn't play (castling, en passant) simply doesn't match.
+ */
+final class San {
+
+    private San() {
+    }
+
+    /**
+     * @return the legal packed move the text describes in the game's current position,
+     * or 0 if it describes none or is ambiguous
+     */
+    static int parse(ChessGame game, String san) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        ChessPiece.PieceType promotion = null;
+        if (end > 2 && Character.isUpperCase(san.charAt(end - 1))) {
+            promotion = Fen.pieceType(san.charAt(end - 1));
+            end -= san.charAt(end - 2) == '=' ? 2 : 1;
+        }
+        int start = 0;
+        var type = ChessPiece.PieceType.PAWN;
+        if (end > 0 && Character.isUpperCase(san.charAt(0))) {
+            type = Fen.pieceType(san.charAt(0));
+            start = 1;
+        }
+        if (type == null || end - start < 2) {
+            return 0;
+        }
+        int toCol = san.charAt(end - 2) - 'a';
+        int toRow = san.charAt(end - 1) - '1';
+        if (toCol < 0 || toCol > 7 || toRow < 0 || toRow > 7) {
+            return 0;
+        }
+        int to = toRow * 8 + toCol;
+//        Whatever is left between the piece letter and the target square disambiguates
+        int fromCol = -1;
+        int fromRow = -1;
+        for (int i = start; i < end - 2; i++) {
+            char c = san.charAt(i);
+            if (c >= 'a' && c <= 'h') {
+                fromCol = c - 'a';
+            } else if (c >= '1' && c <= '8') {
+                fromRow = c - '1';
+            } else if (c != 'x') {
+                return 0;
+            }
+        }
+        var board = game.getBoard();
+        var moves = game.legalMoves(game.getTeamTurn());
+        int found = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int from = Move.from(move);
+            if (Move.to(move) == to && Move.promotion(move) == promotion
+                    && board.getPiece(from).getPieceType() == type
+                    && (fromCol < 0 || (from & 7) == fromCol) && (fromRow < 0 || from >>> 3 == fromRow)) {
+                if (found != 0) {
+                    return 0;
+                }
+                found = move;
+            }
+        }
+        return found;
+    }
+}
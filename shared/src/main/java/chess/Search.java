@@ -0,0 +1,522 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Finds the best move for the team to move with an iterative-deepening negamax
+ * alpha-beta search. The search plays moves on its own copy of the game, so the game it
+ * was created from is never touched and can keep being played or read elsewhere.
+ * <p>
+ * A search ends when it reaches its depth, time or node limit, or when {@link #stop()}
+ * is called from another thread, and reports the deepest iteration that completed. The
+ * inner loop reuses per-ply buffers and allocates nothing, so many short searches can
+ * share a core.
+ * <p>
+ * With more than one thread the search runs "lazy SMP": helper threads search the same
+ * root on their own copies of the game, staggered by depth, and share what they find
+ * only through the {@link TranspositionTable}. The main thread's result is the one
+ * reported; the helpers just fill the table with work it can reuse.
+ * <p>
+ * Usage: {@code java chess.Search [--threads n] [--hash mb] [--millis ms] [--scaling] [--book file]
+ * [--tablebases directory] [fen]}
+ */
+public final class Search {
+
+    public static final int MAX_PLY = 64;
+    /** The score of a side that is checkmated on the board; mate in n plies scores MATE - n */
+    public static final int MATE = 30000;
+    private static final int INFINITY = 32000;
+//    How many nodes pass between checks of the clock and the stop flag
+    private static final int CHECK_INTERVAL = 1024;
+    /** Table size for analysis from the command line and multi-threaded searches */
+    public static final int DEFAULT_HASH_MB = 16;
+    /** Table size for a single-threaded search given no table: enough for a short hint */
+    public static final int HINT_HASH_MB = 1;
+
+    /**
+     * What ends a search: reaching {@code depth}, or spending {@code millis} or
+     * {@code nodes}, where 0 means no limit of that kind
+     */
+    public record Limits(int depth, long millis, long nodes) {
+
+        public Limits {
+            if (depth < 1 || depth > MAX_PLY) {
+                throw new IllegalArgumentException("Search depth must be between 1 and " + MAX_PLY);
+            }
+            if (millis < 0 || nodes < 0) {
+                throw new IllegalArgumentException("Search limits can't be negative");
+            }
+        }
+
+        public static Limits depth(int depth) {
+            return new Limits(depth, 0, 0);
+        }
+
+        public static Limits millis(long millis) {
+            return new Limits(MAX_PLY, millis, 0);
+        }
+
+        public static Limits nodes(long nodes) {
+            return new Limits(MAX_PLY, 0, nodes);
+        }
+    }
+
+    /**
+     * The outcome of one completed iteration. The score is in centipawns from the point
+     * of view of the team to move.
+     */
+    public record Result(int depth, int score, List<ChessMove> principalVariation, long nodes, long nanos) {
+
+        /**
+         * @return the move to play, or null if the team to move has none
+         */
+        public ChessMove bestMove() {
+            return principalVariation.isEmpty() ? null : principalVariation.get(0);
+        }
+
+        /**
+         * @return True if the score is a forced mate for either side
+         */
+        public boolean isMate() {
+            return Math.abs(score) >= MATE - MAX_PLY;
+        }
+
+        public long nodesPerSecond() {
+            return nanos == 0 ? 0 : nodes * 1_000_000_000L / nanos;
+        }
+    }
+
+    private final GameSnapshot position;
+    private final int threads;
+    private final TranspositionTable table;
+    private final AtomicLong sharedNodes = new AtomicLong();
+    private volatile boolean stopped;
+
+    /**
+     * A single-threaded search with a small table of its own. Callers running many
+     * searches should pass a table they reuse instead
+     *
+     * @param game the position to search; a snapshot is taken straight away
+     */
+    public Search(ChessGame game) {
+        this(game, 1, HINT_HASH_MB);
+    }
+
+    /**
+     * A single-threaded search that uses, and leaves its results in, an existing table.
+     * Searches one after another can share a table; entries from earlier searches are
+     * the first to be replaced
+     *
+     * @param game the position to search; a snapshot is taken straight away
+     */
+    public Search(ChessGame game, TranspositionTable table) {
+        this(game, 1, table);
+    }
+
+    /**
+     * @param game           the position to search; a snapshot is taken straight away
+     * @param threads        how many threads to search with
+     * @param hashMegabytes  the size of the transposition table
+     */
+    public Search(ChessGame game, int threads, int hashMegabytes) {
+        this(game, threads, new TranspositionTable(hashMegabytes));
+    }
+
+    private Search(ChessGame game, int threads, TranspositionTable table) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("A search needs at least one thread");
+        }
+        this.position = game.snapshot();
+        this.threads = threads;
+        this.table = table;
+    }
+
+    /**
+     * Asks a running search to finish as soon as possible. Safe to call from any thread.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    public Result run(Limits limits) {
+        return run(limits, null);
+    }
+
+    /**
+     * Searches one ply deeper at a time until a limit is hit
+     *
+     * @param listener told about every completed iteration as it finishes, or null
+     * @return the result of the deepest completed iteration
+     */
+    public Result run(Limits limits, Consumer<Result> listener) {
+        stopped = false;
+        sharedNodes.set(0);
+        table.newSearch();
+        long start = System.nanoTime();
+        var main = new Worker(0, limits, start);
+        var rootMoves = main.rootMoves();
+        if (rootMoves.isEmpty()) {
+            int score = main.game.isInCheck(main.game.getTeamTurn()) ? -MATE : 0;
+            return new Result(0, score, List.of(), 0, System.nanoTime() - start);
+        }
+        var helpers = new Worker[threads - 1];
+        var helperThreads = new Thread[threads - 1];
+        for (int i = 0; i < helpers.length; i++) {
+            var helper = new Worker(i + 1, limits, start);
+            helpers[i] = helper;
+            helperThreads[i] = new Thread(() -> helper.iterate(limits, null), "search-helper-" + (i + 1));
+            helperThreads[i].setDaemon(true);
+            helperThreads[i].start();
+        }
+        var result = main.iterate(limits, listener);
+        stopped = true;
+        long nodes = main.nodes;
+        for (int i = 0; i < helpers.length; i++) {
+            try {
+                helperThreads[i].join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            nodes += helpers[i].nodes;
+        }
+        return new Result(result.depth(), result.score(), result.principalVariation(), nodes,
+                System.nanoTime() - start);
+    }
+
+    /**
+     * @return how full the transposition table is after the last search, in parts per thousand
+     */
+    public int hashPermille() {
+        return table.permille();
+    }
+
+    /**
+     * The state of one search over the private game: per-ply move buffers, the
+     * triangular principal variation table and static exchange scratch space
+     */
+    private final class Worker {
+
+        private final int id;
+        private final ChessGame game = position.toGame();
+        private final MoveList[] moves = new MoveList[MAX_PLY];
+        private final MoveOrdering ordering = new MoveOrdering();
+        private final int[][] pv = new int[MAX_PLY][MAX_PLY];
+        private final int[] pvLength = new int[MAX_PLY];
+        private final int[] exchangeGains = new int[StaticExchange.MAX_CAPTURES];
+        private final long deadline;
+        private final long nodeLimit;
+        private final long start;
+        private long nodes;
+        private boolean aborted;
+
+        Worker(int id, Limits limits, long start) {
+            this.id = id;
+            this.start = start;
+            for (int i = 0; i < MAX_PLY; i++) {
+                moves[i] = new MoveList();
+            }
+            deadline = limits.millis() == 0 ? Long.MAX_VALUE : start + limits.millis() * 1_000_000L;
+            nodeLimit = limits.nodes() == 0 ? Long.MAX_VALUE : limits.nodes();
+        }
+
+        /**
+         * @return the legal root moves, generated into the ply 0 buffer
+         */
+        MoveList rootMoves() {
+            var list = moves[0];
+            list.clear();
+            MoveGenerator.legal(game.getBoard(), game.getTeamTurn(), -1L, list);
+            return list;
+        }
+
+        /**
+         * Searches one ply deeper at a time until a limit is hit or the search is stopped.
+         * Odd-numbered helpers start a ply deeper so the threads spread over depths.
+         *
+         * @return the result of the deepest completed iteration
+         */
+        Result iterate(Limits limits, Consumer<Result> listener) {
+//            Until the first iteration completes, any legal move is better than none
+            var result = new Result(0, 0, List.of(Move.toChessMove(rootMoves().get(0))), 0, 0);
+            for (int depth = 1 + (id & 1); depth <= limits.depth(); depth++) {
+                int score = negamax(depth, 0, -INFINITY, INFINITY);
+                if (aborted) {
+                    break;
+                }
+//                The shared count already holds this worker's flushed batches; only the
+//                remainder since its last flush is its own
+                result = new Result(depth, score, principalVariation(),
+                        sharedNodes.get() + nodes % CHECK_INTERVAL, System.nanoTime() - start);
+                if (listener != null) {
+                    listener.accept(result);
+                }
+                if (result.isMate()) {
+                    break;
+                }
+            }
+            return result;
+        }
+
+        /**
+         * @return the line the last iteration expects. Exact table hits cut the triangular
+         * line short, so it is carried on by following the table's moves until they run
+         * out or repeat; with helper threads that can reach past the iteration's depth.
+         */
+        List<ChessMove> principalVariation() {
+            var line = new ArrayList<ChessMove>();
+            int played = 0;
+            for (; played < pvLength[0]; played++) {
+                line.add(Move.toChessMove(pv[0][played]));
+                game.makeMove(pv[0][played]);
+            }
+            var legal = new MoveList();
+            while (played < MAX_PLY && game.repetitions() < 2) {
+                long entry = table.probe(game.key());
+                int move = TranspositionTable.move(entry);
+                legal.clear();
+                MoveGenerator.legal(game.getBoard(), game.getTeamTurn(), -1L, legal);
+                if (entry == 0 || !contains(legal, move)) {
+                    break;
+                }
+                line.add(Move.toChessMove(move));
+                game.makeMove(move);
+                played++;
+            }
+            for (; played > 0; played--) {
+                game.unmakeMove();
+            }
+            return line;
+        }
+
+        private static boolean contains(MoveList list, int move) {
+            for (int i = 0; i < list.size(); i++) {
+                if (list.get(i) == move) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Counts a node and checks the limits every {@link #CHECK_INTERVAL} nodes
+         *
+         * @return whether the search has been aborted
+         */
+        private boolean tick() {
+            if (++nodes % CHECK_INTERVAL == 0) {
+//                Other threads only see node counts in batches, so a shared node limit can be
+//                overshot by up to a batch per thread
+                long total = sharedNodes.addAndGet(CHECK_INTERVAL);
+                if (stopped || System.nanoTime() >= deadline || total >= nodeLimit) {
+                    aborted = true;
+                }
+            }
+            if (nodes >= nodeLimit) {
+                aborted = true;
+            }
+            return aborted;
+        }
+
+        int negamax(int depth, int ply, int alpha, int beta) {
+            pvLength[ply] = ply;
+            var board = game.getBoard();
+            var side = game.getTeamTurn();
+            if (ply > 0 && (game.halfmoveClock >= 100 || game.repetitions() >= 2 || board.insufficientMaterial())) {
+                return 0;
+            }
+            if (depth == 0) {
+                return quiesce(ply, alpha, beta);
+            }
+            if (tick()) {
+                return 0;
+            }
+            if (ply == MAX_PLY - 1) {
+                return Evaluation.evaluate(board, side);
+            }
+            long key = game.key();
+            long entry = table.probe(key);
+            int hashMove = 0;
+            if (entry != 0) {
+                hashMove = TranspositionTable.move(entry);
+                if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                    int score = TranspositionTable.fromStored(TranspositionTable.score(entry), ply);
+                    int bound = TranspositionTable.bound(entry);
+                    if (bound == TranspositionTable.EXACT
+                            || (bound == TranspositionTable.LOWER && score >= beta)
+                            || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                        return score;
+                    }
+                }
+            }
+            var list = moves[ply];
+            list.clear();
+            MoveGenerator.legal(board, side, -1L, list);
+            if (list.isEmpty()) {
+                return game.isInCheck(side) ? -MATE + ply : 0;
+            }
+            ordering.score(board, list, ply, hashMove != 0 ? hashMove : ply == 0 ? pv[0][0] : 0);
+            int originalAlpha = alpha;
+            int best = -INFINITY;
+            int bestMove = 0;
+            for (int i = 0; i < list.size(); i++) {
+                int move = ordering.next(list, ply, i);
+                game.makeMove(move);
+                int score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+                game.unmakeMove();
+                if (aborted) {
+                    return 0;
+                }
+                if (score > best) {
+                    best = score;
+                    bestMove = move;
+                    if (score > alpha) {
+                        alpha = score;
+                        pv[ply][ply] = move;
+                        System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, pvLength[ply + 1] - ply - 1);
+                        pvLength[ply] = Math.max(pvLength[ply + 1], ply + 1);
+                        if (alpha >= beta) {
+                            ordering.cutoff(board, move, ply, depth);
+                            break;
+                        }
+                    }
+                }
+            }
+            int bound = best >= beta ? TranspositionTable.LOWER
+                    : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+            table.store(key, bestMove, TranspositionTable.toStored(best, ply), depth, bound);
+            return best;
+        }
+
+        /**
+         * Plays out captures past the horizon until the position is quiet, so the static
+         * evaluation is never taken in the middle of an exchange. The side to move may
+         * stand pat on the evaluation instead of capturing, except in check, where every
+         * evasion is searched. Captures that lose material by static exchange are skipped.
+         */
+        int quiesce(int ply, int alpha, int beta) {
+            pvLength[ply] = ply;
+            if (tick()) {
+                return 0;
+            }
+            var board = game.getBoard();
+            var side = game.getTeamTurn();
+            if (ply == MAX_PLY - 1) {
+                return Evaluation.evaluate(board, side);
+            }
+            var list = moves[ply];
+            list.clear();
+            boolean inCheck = game.isInCheck(side);
+            int best;
+            if (inCheck) {
+                MoveGenerator.legal(board, side, -1L, list);
+                if (list.isEmpty()) {
+                    return -MATE + ply;
+                }
+                best = -INFINITY;
+            } else {
+                best = Evaluation.evaluate(board, side);
+                if (best >= beta) {
+                    return best;
+                }
+                alpha = Math.max(alpha, best);
+                MoveGenerator.legal(board, side, -1L, board.pieces(side.opponent()), list);
+            }
+            ordering.score(board, list, ply, 0);
+            for (int i = 0; i < list.size(); i++) {
+                int move = ordering.next(list, ply, i);
+                if (!inCheck && StaticExchange.evaluate(board, move, exchangeGains) < 0) {
+                    continue;
+                }
+                game.makeMove(move);
+                int score = -quiesce(ply + 1, -beta, -alpha);
+                game.unmakeMove();
+                if (aborted) {
+                    return 0;
+                }
+                if (score > best) {
+                    best = score;
+                    if (score > alpha) {
+                        alpha = score;
+                        pv[ply][ply] = move;
+                        System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, pvLength[ply + 1] - ply - 1);
+                        pvLength[ply] = Math.max(pvLength[ply + 1], ply + 1);
+                        if (alpha >= beta) {
+                            break;
+                        }
+                    }
+                }
+            }
+            return best;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int threads = 1;
+        int hash = DEFAULT_HASH_MB;
+        long millis = 5000;
+        boolean scaling = false;
+        OpeningBook book = null;
+        Tablebase tablebase = null;
+        var fen = new StringBuilder();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--hash" -> hash = Integer.parseInt(args[++i]);
+                case "--millis" -> millis = Long.parseLong(args[++i]);
+                case "--scaling" -> scaling = true;
+                case "--book" -> book = OpeningBook.open(Path.of(args[++i]));
+                case "--tablebases" -> tablebase = Tablebase.open(Path.of(args[++i]));
+                default -> fen.append(args[i]).append(' ');
+            }
+        }
+        var game = Fen.parse(fen.isEmpty() ? Fen.START : fen.toString());
+        if (!scaling) {
+            var bookMove = book == null ? null : book.bestMove(game);
+            if (bookMove != null) {
+                System.out.printf("bestmove %s  book%n", Move.toString(Move.encode(bookMove)));
+                return;
+            }
+            var tablebaseMove = tablebase == null ? null : tablebase.bestMove(game);
+            if (tablebaseMove != null) {
+                System.out.printf("bestmove %s  tablebase score %d%n", Move.toString(Move.encode(tablebaseMove)),
+                        tablebase.probe(game));
+                return;
+            }
+            var search = new Search(game, threads, hash);
+            var result = search.run(Limits.millis(millis), Search::report);
+            System.out.printf("bestmove %s  hashfull %d%n", Move.toString(Move.encode(result.bestMove())),
+                    search.hashPermille());
+            return;
+        }
+//        Nodes/sec for 1, 2, 4, ... threads and then the requested count, each with a fresh table
+        var counts = new ArrayList<Integer>();
+        for (int n = 1; n < threads; n *= 2) {
+            counts.add(n);
+        }
+        counts.add(threads);
+        long base = 0;
+        for (int n : counts) {
+            var result = new Search(game, n, hash).run(Limits.millis(millis));
+            long nps = result.nodesPerSecond();
+            if (n == 1) {
+                base = nps;
+            }
+            System.out.printf("threads %2d  depth %2d  nodes %,14d  nodes/sec %,12d  scaling %.2fx%n", n,
+                    result.depth(), result.nodes(), nps, base == 0 ? 0.0 : (double) nps / base);
+        }
+    }
+
+    private static void report(Result result) {
+        var line = new StringBuilder();
+        for (var move : result.principalVariation()) {
+            line.append(' ').append(Move.toString(Move.encode(move)));
+        }
+        System.out.printf("depth %2d  score %6d  nodes %,12d  nodes/sec %,11d  pv%s%n", result.depth(),
+                result.score(), result.nodes(), result.nodesPerSecond(), line);
+    }
+}
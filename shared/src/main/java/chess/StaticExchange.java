@@ -0,0 +1,84 @@
+package chess;
+
+/**
+ * Static exchange evaluation: the material a move wins or loses once every piece that
+ * can take part in the capture sequence on its target square has done so, each side
+ * always recapturing with its least valuable piece and free to stop when recapturing
+ * would lose. Sliders hidden behind other attackers join in as the pieces in front of
+ * them are used up. Pins and checks are not considered.
+ * <p>
+ * The swap list lives in a caller-owned array, so an evaluation allocates nothing.
+ */
+final class StaticExchange {
+
+    /** Swap-list capacity: there can never be more captures on one square than pieces */
+    static final int MAX_CAPTURES = 32;
+
+//    The king is given a value no exchange can make up for, so it only ever captures last
+    private static final int[] VALUE = {20000, 900, 330, 320, 500, 100};
+    private static final ChessPiece.PieceType[] LEAST_VALUABLE_FIRST = {
+            ChessPiece.PieceType.PAWN, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.ROOK, ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.KING
+    };
+
+    private StaticExchange() {
+    }
+
+    /**
+     * @param move a packed move of the piece on its from square
+     * @param gain scratch space of at least {@link #MAX_CAPTURES} entries
+     * @return the material the moving side wins (or, if negative, loses) in centipawns
+     */
+    static int evaluate(ChessBoard board, int move, int[] gain) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        var mover = board.getPiece(from);
+        var target = board.getPiece(to);
+        gain[0] = target == null ? 0 : VALUE[target.getPieceType().ordinal()];
+        int attackerValue = VALUE[mover.getPieceType().ordinal()];
+        var promotion = Move.promotion(move);
+        if (promotion != null) {
+            gain[0] += VALUE[promotion.ordinal()] - VALUE[ChessPiece.PieceType.PAWN.ordinal()];
+            attackerValue = VALUE[promotion.ordinal()];
+        }
+        long occupied = board.occupied() ^ (1L << from);
+        long attackers = board.attackersTo(to, occupied) & occupied;
+        var side = mover.getTeamColor().opponent();
+        int depth = 0;
+        while (depth < MAX_CAPTURES - 1) {
+            depth++;
+//            What this side gains by recapturing, if the other side then stands pat
+            gain[depth] = attackerValue - gain[depth - 1];
+            if (Math.max(-gain[depth - 1], gain[depth]) < 0) {
+                break;
+            }
+            long own = attackers & board.pieces(side);
+            if (own == 0) {
+                break;
+            }
+            var type = ChessPiece.PieceType.KING;
+            long bit = 0L;
+            for (var candidate : LEAST_VALUABLE_FIRST) {
+                long pieces = own & board.pieces(side, candidate);
+                if (pieces != 0) {
+                    type = candidate;
+                    bit = pieces & -pieces;
+                    break;
+                }
+            }
+            if (type == ChessPiece.PieceType.KING && (attackers & board.pieces(side.opponent())) != 0) {
+                break;
+            }
+            occupied ^= bit;
+            attackers = board.attackersTo(to, occupied) & occupied;
+            attackerValue = VALUE[type.ordinal()];
+            side = side.opponent();
+        }
+//        The last entry is a capture nobody could make; fold the rest back from the end,
+//        each side choosing between recapturing and stopping
+        while (--depth > 0) {
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+        }
+        return gain[0];
+    }
+}
@@ -0,0 +1,304 @@
+package chess;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Endgame tablebases: the exact distance to mate of every position of a few small
+ * material sets where one side has only its king. Tables are built by
+ * {@link TablebaseGenerator} and written one file per material set, an 8-byte header
+ * followed by one byte per position; {@link #open(Path)} memory-maps whichever files a
+ * directory holds, so a probe is a handful of bit operations and one read.
+ * <p>
+ * Tables are generated with the strong side as white and probed from either side by
+ * mirroring the board. The fifty-move rule is not taken into account.
+ * <p>
+ * Usage: {@code java chess.Tablebase --out <directory> [--threads n] [KQK|KRK|KPK|KBNK]...}
+ */
+public final class Tablebase {
+
+    /** What {@link #probe(ChessGame)} returns for a position no open table covers */
+    public static final int NOT_FOUND = Integer.MIN_VALUE;
+
+//    "CHESSTB1"
+    static final long MAGIC = 0x4348455353544231L;
+    static final int HEADER = 8;
+//    Table entries: 0 for a draw, ILLEGAL for an impossible placement, otherwise the number
+//    of plies to mate plus one
+    static final byte ILLEGAL = -1;
+
+    /**
+     * The material sets with tables: the strong side's pieces besides its king
+     */
+    public enum Material {
+        KQK(ChessPiece.PieceType.QUEEN),
+        KRK(ChessPiece.PieceType.ROOK),
+        KPK(ChessPiece.PieceType.PAWN),
+        KBNK(ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT);
+
+        final ChessPiece.PieceType[] pieces;
+
+        Material(ChessPiece.PieceType... pieces) {
+            this.pieces = pieces;
+        }
+
+        /**
+         * @return the number of pieces on the board, kings included
+         */
+        int pieceCount() {
+            return pieces.length + 2;
+        }
+
+        /**
+         * @return the number of table entries: every placement with either side to move
+         */
+        int size() {
+            return 2 << (6 * pieceCount());
+        }
+
+        /**
+         * @param whiteToMove whether the strong side is to move
+         * @param squares     the strong king, the weak king and then the other pieces in
+         *                    {@link #pieces} order
+         */
+        int index(boolean whiteToMove, int... squares) {
+            int index = whiteToMove ? 0 : 1;
+            for (int square : squares) {
+                index = index << 6 | square;
+            }
+            return index;
+        }
+
+        /**
+         * @return the material set with exactly these pieces, or null
+         */
+        static Material of(ChessPiece.PieceType... pieces) {
+            for (var material : values()) {
+                if (Arrays.equals(material.pieces, pieces)) {
+                    return material;
+                }
+            }
+            return null;
+        }
+
+        private boolean matches(ChessBoard board, ChessGame.TeamColor strong, long others) {
+            long seen = 0L;
+            for (var type : pieces) {
+                long bits = board.pieces(strong, type);
+                if (Long.bitCount(bits) != 1) {
+                    return false;
+                }
+                seen |= bits;
+            }
+            return seen == others;
+        }
+    }
+
+//    values() copies the array on every call, which probing can't afford
+    private static final Material[] MATERIALS = Material.values();
+
+    private final MappedByteBuffer[] tables = new MappedByteBuffer[MATERIALS.length];
+
+    private Tablebase() {
+    }
+
+    /**
+     * Maps every table file in a directory; material sets without a file are just not covered
+     *
+     * @throws IOException if a table file can't be read or is damaged
+     */
+    public static Tablebase open(Path directory) throws IOException {
+        var tablebase = new Tablebase();
+        for (var material : Material.values()) {
+            var path = file(directory, material);
+            if (!Files.exists(path)) {
+                continue;
+            }
+            try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                if (channel.size() != HEADER + material.size()) {
+                    throw new IOException("Not a " + material + " table: " + path);
+                }
+                var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (buffer.getLong(0) != MAGIC) {
+                    throw new IOException("Not a " + material + " table: " + path);
+                }
+                tablebase.tables[material.ordinal()] = buffer;
+            }
+        }
+        return tablebase;
+    }
+
+    /**
+     * Generates tables and writes them to a directory. Tables that others need, such as
+     * the ones a pawn promotes into, are generated too, but only written if asked for
+     */
+    public static void generate(Path directory, ForkJoinPool pool, Material... materials) throws IOException {
+        Files.createDirectories(directory);
+        var generated = new EnumMap<Material, byte[]>(Material.class);
+        for (var material : materials) {
+            write(file(directory, material), generate(material, generated, pool));
+        }
+    }
+
+    private static byte[] generate(Material material, Map<Material, byte[]> generated, ForkJoinPool pool) {
+        var table = generated.get(material);
+        if (table == null) {
+            for (var promotion : TablebaseGenerator.promotions(material)) {
+                if (promotion != null) {
+                    generate(promotion, generated, pool);
+                }
+            }
+            table = TablebaseGenerator.generate(material, generated, pool);
+            generated.put(material, table);
+        }
+        return table;
+    }
+
+    private static void write(Path path, byte[] table) throws IOException {
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeLong(MAGIC);
+            out.write(table);
+        }
+    }
+
+    private static Path file(Path directory, Material material) {
+        return directory.resolve(material + ".dtm");
+    }
+
+    /**
+     * @return whether a table for the material set is open
+     */
+    public boolean covers(Material material) {
+        return tables[material.ordinal()] != null;
+    }
+
+    /**
+     * Looks a position up without allocating anything
+     *
+     * @return the score from the side to move's point of view, on {@link Search}'s scale:
+     * {@code Search.MATE - n} if it mates in n plies, {@code -(Search.MATE - n)} if it is
+     * mated in n plies, 0 for a draw, or {@link #NOT_FOUND}
+     */
+    public int probe(ChessGame game) {
+        var board = game.getBoard();
+        int whiteKing = board.kingSquare(ChessGame.TeamColor.WHITE);
+        int blackKing = board.kingSquare(ChessGame.TeamColor.BLACK);
+        if (whiteKing < 0 || blackKing < 0) {
+            return NOT_FOUND;
+        }
+        long white = board.pieces(ChessGame.TeamColor.WHITE) ^ (1L << whiteKing);
+        long black = board.pieces(ChessGame.TeamColor.BLACK) ^ (1L << blackKing);
+        if (white == 0 && black == 0) {
+            return 0;
+        }
+        if (white != 0 && black != 0) {
+            return NOT_FOUND;
+        }
+        var strong = white != 0 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        long others = white | black;
+        for (var material : MATERIALS) {
+            var table = tables[material.ordinal()];
+            if (table == null || !material.matches(board, strong, others)) {
+                continue;
+            }
+//            Mirroring the ranks turns a black strong side into a white one
+            int flip = strong == ChessGame.TeamColor.WHITE ? 0 : 56;
+            boolean strongToMove = game.getTeamTurn() == strong;
+            int index = strongToMove ? 0 : 1;
+            index = index << 6 | (strong == ChessGame.TeamColor.WHITE ? whiteKing : blackKing) ^ flip;
+            index = index << 6 | (strong == ChessGame.TeamColor.WHITE ? blackKing : whiteKing) ^ flip;
+            for (var type : material.pieces) {
+                index = index << 6 | Long.numberOfTrailingZeros(board.pieces(strong, type)) ^ flip;
+            }
+            int entry = table.get(HEADER + index);
+            if (entry == ILLEGAL) {
+                return NOT_FOUND;
+            }
+            if (entry == 0) {
+                return 0;
+            }
+            int score = Search.MATE - (entry - 1);
+            return strongToMove ? score : -score;
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Picks the move that mates fastest, or when losing holds out longest, or else keeps
+     * the draw. Any position one move out of a covered one is either covered too or a
+     * dead draw, so every move can be scored.
+     *
+     * @return the move, or null if the position isn't covered or there are no legal moves
+     */
+    public ChessMove bestMove(ChessGame game) {
+        if (probe(game) == NOT_FOUND) {
+            return null;
+        }
+        var moves = new MoveList();
+        MoveGenerator.legal(game.getBoard(), game.getTeamTurn(), -1L, moves);
+        int best = 0;
+        int bestScore = Integer.MIN_VALUE;
+        for (int i = 0; i < moves.size(); i++) {
+            game.makeMove(moves.get(i));
+            int reply = probe(game);
+            game.unmakeMove();
+            int score = reply == NOT_FOUND ? 0 : -reply;
+            if (score > bestScore) {
+                bestScore = score;
+                best = moves.get(i);
+            }
+        }
+        return best == 0 ? null : Move.toChessMove(best);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path out = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        var materials = new ArrayList<Material>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--out" -> out = Path.of(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                default -> materials.add(Material.valueOf(args[i]));
+            }
+        }
+        if (out == null) {
+            System.err.println("Usage: java chess.Tablebase --out <directory> [--threads n] [KQK|KRK|KPK|KBNK]...");
+            return;
+        }
+        if (materials.isEmpty()) {
+            materials.addAll(List.of(Material.values()));
+        }
+        var pool = new ForkJoinPool(threads);
+        var generated = new EnumMap<Material, byte[]>(Material.class);
+        Files.createDirectories(out);
+        for (var material : materials) {
+            long start = System.nanoTime();
+            byte[] table = generate(material, generated, pool);
+            write(file(out, material), table);
+            long wins = 0;
+            int longest = 0;
+            for (int index = 0; index < table.length / 2; index++) {
+                if (table[index] > 0) {
+                    wins++;
+                    longest = Math.max(longest, table[index] - 1);
+                }
+            }
+            System.out.printf("%-5s %,12d positions  %,12d won with the strong side to move  longest mate %d plies  %,d ms%n",
+                    material, table.length, wins, longest, (System.nanoTime() - start) / 1_000_000);
+        }
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,331 @@
+package chess;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Builds a {@link Tablebase} table by retrograde analysis. Every placement is indexed
+ * and checked once; after that, each pass takes the positions decided in the last one
+ * and works backwards: the strong side (always white here) wins in n plies from any
+ * position with a move into a loss in n - 1, and the bare king loses in n plies where
+ * every move leads to a win found in earlier passes, the longest being n - 1. A bare
+ * king that can take a piece escapes into a drawn ending. Positions still undecided
+ * when the passes run dry are draws.
+ * <p>
+ * Each pass splits the table into fork/join tasks. A pass only ever writes entries of
+ * one side to move and reads those of the other, and two tasks that reach the same
+ * position write the same value, so the tasks need no locking.
+ */
+final class TablebaseGenerator {
+
+    private static final int CHUNK = 1 << 15;
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.ROOK, ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT
+    };
+
+    private final Tablebase.Material material;
+    private final ChessPiece.PieceType[] types;
+    private final int count;
+    private final int half;
+    private final byte[] table;
+//    For each promotion piece, the table a pawn promoting to it lands in, or null if the
+//    resulting ending is a draw
+    private final Tablebase.Material[] promotions;
+    private final byte[][] promotionTables;
+//    White-to-move entries that are won by promoting, found up front and applied in the
+//    pass for their distance; null without a pawn
+    private final byte[] promotionWins;
+
+    private TablebaseGenerator(Tablebase.Material material, Map<Tablebase.Material, byte[]> generated) {
+        this.material = material;
+        types = material.pieces;
+        count = material.pieceCount();
+        table = new byte[material.size()];
+        half = table.length / 2;
+        promotions = promotions(material);
+        promotionTables = new byte[promotions.length][];
+        for (int i = 0; i < promotions.length; i++) {
+            promotionTables[i] = promotions[i] == null ? null : generated.get(promotions[i]);
+        }
+        promotionWins = promotions.length == 0 ? null : new byte[half];
+    }
+
+    /**
+     * @return for each promotion piece, queen first, the material set after a pawn
+     * promotes to it, or null where that ending has no table; empty without a pawn
+     */
+    static Tablebase.Material[] promotions(Tablebase.Material material) {
+        int pawn = -1;
+        for (int i = 0; i < material.pieces.length; i++) {
+            if (material.pieces[i] == ChessPiece.PieceType.PAWN) {
+                pawn = i;
+            }
+        }
+        if (pawn < 0) {
+            return new Tablebase.Material[0];
+        }
+        var result = new Tablebase.Material[PROMOTIONS.length];
+        for (int i = 0; i < PROMOTIONS.length; i++) {
+            var pieces = material.pieces.clone();
+            pieces[pawn] = PROMOTIONS[i];
+            result[i] = Tablebase.Material.of(pieces);
+        }
+        return result;
+    }
+
+    /**
+     * @param generated finished tables, which must include every table this one promotes into
+     * @return the table, one entry per {@link Tablebase.Material#index} without the file header
+     */
+    static byte[] generate(Tablebase.Material material, Map<Tablebase.Material, byte[]> generated, ForkJoinPool pool) {
+        var generator = new TablebaseGenerator(material, generated);
+        pool.invoke(generator.new Pass(0, generator.table.length, 0));
+        int lastPromotion = 0;
+        if (generator.promotionWins != null) {
+            for (byte entry : generator.promotionWins) {
+                lastPromotion = Math.max(lastPromotion, entry);
+            }
+        }
+        for (int plies = 1; ; plies++) {
+            boolean found = pool.invoke(generator.new Pass(0, generator.table.length, plies));
+            if (!found && plies + 1 >= lastPromotion) {
+                return generator.table;
+            }
+        }
+    }
+
+    /**
+     * Pass 0 checks every placement; pass n decides the positions n plies from mate
+     */
+    private final class Pass extends RecursiveTask<Boolean> {
+
+        private final int from;
+        private final int to;
+        private final int plies;
+
+        Pass(int from, int to, int plies) {
+            this.from = from;
+            this.to = to;
+            this.plies = plies;
+        }
+
+        @Override
+        protected Boolean compute() {
+            if (to - from > CHUNK) {
+                int middle = (from + to) >>> 1;
+                var left = new Pass(from, middle, plies);
+                left.fork();
+                boolean right = new Pass(middle, to, plies).compute();
+                return left.join() | right;
+            }
+            int[] squares = new int[count];
+            boolean found = false;
+            for (int index = from; index < to; index++) {
+                found |= visit(index, plies, squares);
+            }
+            return found;
+        }
+    }
+
+    /**
+     * @return whether a position was decided
+     */
+    private boolean visit(int index, int plies, int[] squares) {
+        boolean whiteToMove = index < half;
+        if (plies == 0) {
+            initialize(index, whiteToMove, squares);
+            return false;
+        }
+        if ((plies & 1) == 0) {
+            return whiteToMove && table[index] == plies && retractBlack(index, plies, squares);
+        }
+        if (!whiteToMove) {
+            return table[index] == plies && retractWhite(index, plies, squares);
+        }
+        if (promotionWins != null && promotionWins[index] == plies + 1 && table[index] == 0) {
+            table[index] = (byte) (plies + 1);
+            return true;
+        }
+        return false;
+    }
+
+    private void initialize(int index, boolean whiteToMove, int[] squares) {
+        decode(index, squares);
+        if (!legal(squares, whiteToMove)) {
+            table[index] = Tablebase.ILLEGAL;
+        } else if (whiteToMove) {
+            if (promotionWins != null) {
+                promotionWins[index] = promotionWin(squares);
+            }
+        } else if (blackMoves(squares) == 0 && inCheck(squares)) {
+            table[index] = 1;
+        }
+    }
+
+    /**
+     * @return the entry for the quickest win by promoting in a white-to-move position, or 0
+     */
+    private byte promotionWin(int[] squares) {
+        int best = 0;
+        for (int slot = 2; slot < count; slot++) {
+            int square = squares[slot];
+            if (types[slot - 2] != ChessPiece.PieceType.PAWN || square >>> 3 != 6
+                    || (occupied(squares) & (1L << (square + 8))) != 0) {
+                continue;
+            }
+            squares[slot] = square + 8;
+            for (int i = 0; i < promotions.length; i++) {
+                if (promotionTables[i] == null) {
+                    continue;
+                }
+//                Black to move, lost in entry - 1 plies, so won here in entry plies
+                int entry = promotionTables[i][promotions[i].index(false, squares)];
+                if (entry > 0 && (best == 0 || entry + 1 < best)) {
+                    best = entry + 1;
+                }
+            }
+            squares[slot] = square;
+        }
+        return (byte) best;
+    }
+
+    /**
+     * From a black-to-move position lost in plies - 1, marks every white-to-move position
+     * with a move into it as won in plies
+     */
+    private boolean retractWhite(int index, int plies, int[] squares) {
+        decode(index, squares);
+        long occupied = occupied(squares);
+        boolean found = false;
+        for (int slot = 0; slot < count; slot++) {
+            if (slot == 1) {
+                continue;
+            }
+            int square = squares[slot];
+            long sources;
+            if (slot == 0) {
+                sources = Attacks.KING[square] & ~occupied;
+            } else if (types[slot - 2] == ChessPiece.PieceType.PAWN) {
+                sources = 0L;
+                if (square >= 16 && (occupied & (1L << (square - 8))) == 0) {
+                    sources = 1L << (square - 8);
+                    if (square >>> 3 == 3 && (occupied & (1L << (square - 16))) == 0) {
+                        sources |= 1L << (square - 16);
+                    }
+                }
+            } else {
+                sources = Attacks.of(types[slot - 2], square, occupied) & ~occupied;
+            }
+            while (sources != 0) {
+                squares[slot] = Long.numberOfTrailingZeros(sources);
+                sources &= sources - 1;
+                if (legal(squares, true)) {
+                    int previous = material.index(true, squares);
+                    if (table[previous] == 0) {
+                        table[previous] = (byte) (plies + 1);
+                        found = true;
+                    }
+                }
+            }
+            squares[slot] = square;
+        }
+        return found;
+    }
+
+    /**
+     * From a white-to-move position won in plies - 1, marks every black-to-move position
+     * with a king move into it as lost in plies, if all its other moves lose too
+     */
+    private boolean retractBlack(int index, int plies, int[] squares) {
+        decode(index, squares);
+        int king = squares[1];
+        long sources = Attacks.KING[king] & ~occupied(squares);
+        boolean found = false;
+        while (sources != 0) {
+            squares[1] = Long.numberOfTrailingZeros(sources);
+            sources &= sources - 1;
+            if (legal(squares, false)) {
+                int previous = material.index(false, squares);
+                if (table[previous] == 0 && allMovesLose(squares)) {
+                    table[previous] = (byte) (plies + 1);
+                    found = true;
+                }
+            }
+        }
+        squares[1] = king;
+        return found;
+    }
+
+    private boolean allMovesLose(int[] squares) {
+        long targets = blackMoves(squares);
+        if ((targets & occupied(squares)) != 0) {
+            return false;
+        }
+        int king = squares[1];
+        boolean lost = true;
+        while (targets != 0 && lost) {
+            squares[1] = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            lost = table[material.index(true, squares)] > 0;
+        }
+        squares[1] = king;
+        return lost;
+    }
+
+    private void decode(int index, int[] squares) {
+        for (int slot = count - 1; slot >= 0; slot--) {
+            squares[slot] = index & 63;
+            index >>>= 6;
+        }
+    }
+
+    private static long occupied(int[] squares) {
+        long occupied = 0L;
+        for (int square : squares) {
+            occupied |= 1L << square;
+        }
+        return occupied;
+    }
+
+    /**
+     * @return whether the placement is possible with the given side to move: no two
+     * pieces on a square, kings apart, pawns off the back ranks and the side not to move
+     * not in check
+     */
+    private boolean legal(int[] squares, boolean whiteToMove) {
+        long occupied = occupied(squares);
+        if (Long.bitCount(occupied) != count || (Attacks.KING[squares[0]] & (1L << squares[1])) != 0) {
+            return false;
+        }
+        for (int slot = 2; slot < count; slot++) {
+            if (types[slot - 2] == ChessPiece.PieceType.PAWN && (squares[slot] < 8 || squares[slot] >= 56)) {
+                return false;
+            }
+        }
+        return !whiteToMove || !inCheck(squares);
+    }
+
+    private boolean inCheck(int[] squares) {
+        return (whiteAttacks(squares, occupied(squares)) & (1L << squares[1])) != 0;
+    }
+
+    /**
+     * @return the squares the black king can move to, captures of undefended pieces included
+     */
+    private long blackMoves(int[] squares) {
+        long withoutKing = occupied(squares) ^ (1L << squares[1]);
+        return Attacks.KING[squares[1]] & ~whiteAttacks(squares, withoutKing);
+    }
+
+    private long whiteAttacks(int[] squares, long occupied) {
+        long attacks = Attacks.KING[squares[0]];
+        for (int slot = 2; slot < count; slot++) {
+            var type = types[slot - 2];
+            attacks |= type == ChessPiece.PieceType.PAWN
+                    ? Attacks.PAWN[ChessGame.TeamColor.WHITE.ordinal()][squares[slot]]
+                    : Attacks.of(type, squares[slot], occupied);
+        }
+        return attacks;
+    }
+}
@@ -0,0 +1,142 @@
+package chess;
+
+/**
+ * A fixed-size hash table of search results shared by every search thread without
+ * locks. Each entry is two longs, the Zobrist key XORed with the data and the data
+ * itself, written one after the other with plain stores. If two threads write the same
+ * slot at once a reader may see halves of different entries; the key then fails to
+ * match and the probe is simply a miss, so a torn entry can never be mistaken for a
+ * real one.
+ * <p>
+ * Data layout: move in bits 0-16, bound in 17-18, depth in 19-26, search age in 27-34
+ * and the score as a signed 16-bit value in 48-63. Every stored entry has a non-zero
+ * bound, so an all-zero slot is empty.
+ * <p>
+ * A table can be kept and handed to one {@link Search} after another, so a server
+ * answering hints doesn't allocate and clear a new one for every move.
+ */
+public final class TranspositionTable {
+
+    static final int EXACT = 1;
+    /** The score is a lower bound: the node failed high */
+    static final int LOWER = 2;
+    /** The score is an upper bound: no move beat alpha */
+    static final int UPPER = 3;
+
+    private static final int ENTRY_BYTES = 16;
+    private static final long MAX_ENTRIES = 1L << 28;
+
+    private final long[] entries;
+    private final long mask;
+    private int age;
+
+    /**
+     * @param megabytes the memory to use, rounded down to a power of two entries
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Hash size must be at least 1 MB");
+        }
+        long count = Math.min(Long.highestOneBit(megabytes * (1L << 20) / ENTRY_BYTES), MAX_ENTRIES);
+        entries = new long[(int) count * 2];
+        mask = count - 1;
+    }
+
+    /**
+     * Starts a new search generation, so entries from earlier searches are the first to
+     * be replaced. Must be called before the search threads start.
+     */
+    void newSearch() {
+        age = (age + 1) & 0xFF;
+    }
+
+    /**
+     * @return the data stored for the key, or 0 if there is none
+     */
+    long probe(long key) {
+        int index = (int) (key & mask) << 1;
+        long data = entries[index + 1];
+        return (entries[index] ^ data) == key ? data : 0L;
+    }
+
+    /**
+     * Stores a result unless the slot holds a deeper result for another position from the
+     * current search. A store without a move keeps the move already known for the position.
+     *
+     * @param score a score already adjusted with {@link #toStored(int, int)}
+     */
+    void store(long key, int move, int score, int depth, int bound) {
+        int index = (int) (key & mask) << 1;
+        long old = entries[index + 1];
+        boolean samePosition = old != 0 && (entries[index] ^ old) == key;
+        if (old != 0 && !samePosition && age(old) == age && depth < depth(old) && bound != EXACT) {
+            return;
+        }
+        if (move == 0 && samePosition) {
+            move = move(old);
+        }
+        long data = (move & 0x1FFFFL) | ((long) bound << 17) | ((long) depth << 19) | ((long) age << 27)
+                | ((long) score << 48);
+        entries[index] = key ^ data;
+        entries[index + 1] = data;
+    }
+
+    /**
+     * @return how full the table is, in parts per thousand of a sample of its slots
+     */
+    int permille() {
+        int sample = (int) Math.min(1000, mask + 1);
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            long data = entries[i * 2 + 1];
+            if (data != 0 && age(data) == age) {
+                used++;
+            }
+        }
+        return used * 1000 / sample;
+    }
+
+    static int move(long data) {
+        return (int) (data & 0x1FFFFL);
+    }
+
+    static int bound(long data) {
+        return (int) (data >>> 17) & 3;
+    }
+
+    static int depth(long data) {
+        return (int) (data >>> 19) & 0xFF;
+    }
+
+    private static int age(long data) {
+        return (int) (data >>> 27) & 0xFF;
+    }
+
+    static int score(long data) {
+        return (int) (data >> 48);
+    }
+
+    /**
+     * Mate scores count plies from the root; in the table they count from the node that
+     * stored them, so the entry stays right when it is found at a different ply
+     */
+    static int toStored(int score, int ply) {
+        if (score >= Search.MATE - Search.MAX_PLY) {
+            return score + ply;
+        }
+        if (score <= -Search.MATE + Search.MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    static int fromStored(int score, int ply) {
+        if (score >= Search.MATE - Search.MAX_PLY) {
+            return score - ply;
+        }
+        if (score <= -Search.MATE + Search.MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+}
@@ -0,0 +1,29 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing. A position's key is the XOR of one key per
+ * (piece, square) pair on the board, plus {@link #BLACK_TO_MOVE} when it is black's
+ * turn, so adding or removing a piece updates it with a single XOR.
+ */
+final class Zobrist {
+
+    /** [piece index (see ChessBoard.pieceIndex)][square] */
+    static final long[][] PIECE_SQUARE = new long[12][64];
+    static final long BLACK_TO_MOVE;
+
+    static {
+//        Fixed seed: the keys must agree between the client, the server and anything written to disk
+        var random = new SplittableRandom(0x2D358DCCAA6C78A5L);
+        for (long[] keys : PIECE_SQUARE) {
+            for (int square = 0; square < 64; square++) {
+                keys[square] = random.nextLong();
+            }
+        }
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+}
@@ -2,6 +2,7 @@ package websocket.messages;
 
 import chess.ChessGame;
 import chess.ChessMove;
+import chess.GameSnapshot;
 import websocket.commands.UserGameCommand;
 
 import java.util.Objects;
@@ -51,6 +52,14 @@ public class ServerMessage {
         this.game = game;
     }
 
+    /**
+     * Attaches a private copy of a snapshot, so serializing this message never reads a
+     * game that another thread is still playing moves on
+     */
+    public void setGame(GameSnapshot snapshot) {
+        this.game = snapshot.toGame();
+    }
+
     public ChessGame getGame() {
         return this.game;
     }
@@ -0,0 +1,110 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChessBoardTest {
+
+    private static void assertIndexMatchesMailbox(ChessBoard board) {
+        long occupied = 0L;
+        for (var color : ChessGame.TeamColor.values()) {
+            long colorBits = 0L;
+            for (var type : ChessPiece.PieceType.values()) {
+                long expected = 0L;
+                for (int square = 0; square < 64; square++) {
+                    var piece = board.getPiece(square);
+                    if (piece != null && piece.getTeamColor() == color && piece.getPieceType() == type) {
+                        expected |= 1L << square;
+                    }
+                }
+                assertEquals(expected, board.pieces(color, type), color + " " + type);
+                colorBits |= expected;
+            }
+            assertEquals(colorBits, board.pieces(color));
+            occupied |= colorBits;
+        }
+        assertEquals(occupied, board.occupied());
+    }
+
+    @Test
+    void resetBoardIndexTest() {
+        var board = new ChessBoard();
+        board.resetBoard();
+        assertIndexMatchesMailbox(board);
+        assertEquals(0x000000000000FF00L, board.pieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        assertEquals(0xFFFF00000000FFFFL, board.occupied());
+    }
+
+    @Test
+    void addRemovePieceIndexTest() {
+        var board = new ChessBoard();
+        board.resetBoard();
+        var e2 = new ChessPosition(2, 5);
+        var e4 = new ChessPosition(4, 5);
+        var pawn = board.getPiece(e2);
+        board.removePiece(e2);
+        board.addPiece(e4, pawn);
+        board.addPiece(new ChessPosition(8, 4), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        board.addPiece(new ChessPosition(1, 1), null);
+        assertIndexMatchesMailbox(board);
+        board.resetBoard();
+        assertIndexMatchesMailbox(board);
+    }
+
+    @Test
+    void kingSquareTest() {
+        var board = new ChessBoard();
+        assertEquals(-1, board.kingSquare(ChessGame.TeamColor.WHITE));
+        board.resetBoard();
+        assertEquals(4, board.kingSquare(ChessGame.TeamColor.WHITE));
+        assertEquals(60, board.kingSquare(ChessGame.TeamColor.BLACK));
+        var king = board.getPiece(4);
+        board.removePiece(new ChessPosition(1, 5));
+        board.addPiece(new ChessPosition(3, 7), king);
+        assertEquals(22, board.kingSquare(ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    void cloneAndDeserializeIndexTest() {
+        var board = new ChessBoard();
+        board.resetBoard();
+        board.occupied();
+        var copy = board.clone();
+        copy.removePiece(new ChessPosition(1, 2));
+        assertIndexMatchesMailbox(board);
+        assertIndexMatchesMailbox(copy);
+        assertNotEquals(board.occupied(), copy.occupied());
+
+        var serializer = new Gson();
+        var restored = serializer.fromJson(serializer.toJson(copy), ChessBoard.class);
+        assertEquals(copy, restored);
+        assertIndexMatchesMailbox(restored);
+    }
+
+    @Test
+    void canonicalPieceTest() {
+        var board = new ChessBoard();
+        board.resetBoard();
+        var built = new ChessBoard();
+        built.resetBoard();
+        for (int square = 0; square < 64; square++) {
+            var piece = built.getPiece(square);
+            if (piece != null) {
+                built.setPiece(square, new ChessPiece(piece.getTeamColor(), piece.getPieceType()));
+            }
+        }
+        assertEquals(board, built);
+        assertEquals(board.hashCode(), built.hashCode());
+
+        var serializer = new Gson();
+        var restored = serializer.fromJson(serializer.toJson(built), ChessBoard.class);
+        assertEquals(board, restored);
+        assertSame(ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN),
+                restored.getPiece(new ChessPosition(8, 4)));
+
+        built.addPiece(new ChessPosition(8, 4), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        assertNotEquals(board, built);
+    }
+}
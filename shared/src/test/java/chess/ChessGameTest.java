@@ -0,0 +1,289 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChessGameTest {
+
+    private static ChessMove move(String from, String to) {
+        return new ChessMove(position(from), position(to), null);
+    }
+
+    private static ChessPosition position(String square) {
+        return new ChessPosition(square.charAt(1) - '0', square.charAt(0) - 'a' + 1);
+    }
+
+    private static void play(ChessGame game, String... moves) throws InvalidMoveException {
+        for (String move : moves) {
+            game.makeMove(move(move.substring(0, 2), move.substring(2, 4)));
+        }
+    }
+
+    @Test
+    void incrementalKeyMatchesRebuiltKeyTest() throws InvalidMoveException {
+        var game = new ChessGame();
+        play(game, "e2e4", "d7d5", "e4d5", "d8d5", "b1c3");
+        var serializer = new Gson();
+        var rebuilt = serializer.fromJson(serializer.toJson(game), ChessGame.class);
+        assertEquals(game.key(), rebuilt.key());
+        assertEquals(game, rebuilt);
+        assertEquals(game.hashCode(), rebuilt.hashCode());
+    }
+
+    @Test
+    void unmakeMoveRestoresKeyTest() {
+        var game = new ChessGame();
+        long start = game.key();
+        var moves = new MoveList();
+        MoveGenerator.legal(game.getBoard(), game.getTeamTurn(), -1L, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            game.makeMove(moves.get(i));
+            assertNotEquals(start, game.key());
+            game.unmakeMove();
+            assertEquals(start, game.key());
+        }
+    }
+
+    @Test
+    void transpositionKeyTest() throws InvalidMoveException {
+        var first = new ChessGame();
+        play(first, "g1f3", "g8f6", "b1c3");
+        var second = new ChessGame();
+        play(second, "b1c3", "g8f6", "g1f3");
+        assertEquals(first.key(), second.key());
+        assertEquals(first, second);
+
+        play(first, "b8c6");
+        assertNotEquals(first.key(), second.key());
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    void canonicalPositionTest() {
+        assertSame(ChessPosition.of(4, 5), ChessPosition.of(4, 5));
+        assertEquals(new ChessPosition(4, 5), ChessPosition.of(4, 5));
+        assertEquals(new ChessPosition(9, 0), ChessPosition.of(9, 0));
+
+        var serializer = new Gson();
+        var original = new ChessMove(ChessPosition.of(7, 2), ChessPosition.of(8, 2), ChessPiece.PieceType.QUEEN);
+        String json = serializer.toJson(original);
+        assertEquals("{\"startPosition\":{\"row\":7,\"col\":2},\"endPosition\":{\"row\":8,\"col\":2},"
+                + "\"promotionPiece\":\"QUEEN\"}", json);
+        var restored = serializer.fromJson(json, ChessMove.class);
+        assertEquals(original, restored);
+        assertSame(ChessPosition.of(7, 2), restored.getStartPosition());
+        assertSame(ChessPosition.of(8, 2), restored.getEndPosition());
+    }
+
+    @Test
+    void legalMoveCacheTest() throws InvalidMoveException {
+        var game = new ChessGame();
+        var cached = game.legalMoves(ChessGame.TeamColor.WHITE);
+        assertEquals(20, cached.size());
+        assertSame(cached, game.legalMoves(ChessGame.TeamColor.WHITE));
+        long first = cached.get(0);
+        assertEquals(2, game.validMoves(position("g1")).size());
+        assertEquals(first, game.legalMoves(ChessGame.TeamColor.WHITE).get(0));
+
+        play(game, "e2e4", "e7e5");
+        assertEquals(29, game.legalMoves(ChessGame.TeamColor.WHITE).size());
+        assertEquals(4, game.validMoves(position("d1")).size());
+
+        game.getBoard().removePiece(position("d2"));
+        assertEquals(40, game.legalMoves(ChessGame.TeamColor.WHITE).size());
+
+        var board = new ChessBoard();
+        board.addPiece(position("a1"), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        game.setBoard(board);
+        assertEquals(3, game.legalMoves(ChessGame.TeamColor.WHITE).size());
+        assertTrue(game.legalMoves(ChessGame.TeamColor.BLACK).isEmpty());
+    }
+
+    @Test
+    void gameStatusTest() throws InvalidMoveException {
+        var game = new ChessGame();
+        assertEquals(ChessGame.GameStatus.ONGOING, game.getStatus());
+        play(game, "f2f3", "e7e5", "g2g4");
+        assertEquals(ChessGame.GameStatus.ONGOING, game.getStatus());
+        play(game, "d8h4");
+        assertEquals(ChessGame.GameStatus.CHECKMATE, game.getStatus());
+
+        var serializer = new Gson();
+        var restored = serializer.fromJson(serializer.toJson(game), ChessGame.class);
+        assertEquals(ChessGame.GameStatus.CHECKMATE, restored.getStatus());
+
+//        A loaded game takes its stored status as is until its board changes
+        var json = serializer.toJsonTree(new ChessGame()).getAsJsonObject();
+        json.addProperty("status", "CHECK");
+        restored = serializer.fromJson(json, ChessGame.class);
+        assertEquals(ChessGame.GameStatus.CHECK, restored.getStatus());
+        restored.getBoard().removePiece(position("a2"));
+        assertEquals(ChessGame.GameStatus.ONGOING, restored.getStatus());
+
+//        Editing a new game's board is noticed before any move is made
+        game = new ChessGame();
+        game.getBoard().removePiece(position("f2"));
+        game.getBoard().removePiece(position("g2"));
+        game.getBoard().addPiece(position("h4"), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
+        assertEquals(ChessGame.GameStatus.CHECKMATE, game.getStatus());
+
+        game = Fen.parse("k7/8/1Q6/8/8/8/8/K7 b - - 0 1");
+        assertEquals(ChessGame.GameStatus.STALEMATE, game.getStatus());
+        game.getBoard().removePiece(position("b6"));
+        assertEquals(ChessGame.GameStatus.DRAW, game.getStatus());
+        game.getBoard().addPiece(position("b7"), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        assertEquals(ChessGame.GameStatus.CHECK, game.getStatus());
+        game.setTeamTurn(ChessGame.TeamColor.WHITE);
+        assertEquals(ChessGame.GameStatus.ONGOING, game.getStatus());
+    }
+
+    @Test
+    void repetitionTest() throws InvalidMoveException {
+        var game = new ChessGame();
+        play(game, "g1f3", "g8f6", "f3g1", "f6g8");
+        assertFalse(game.isThreefoldRepetition());
+        assertEquals(ChessGame.GameStatus.ONGOING, game.getStatus());
+        play(game, "g1f3", "g8f6", "f3g1", "f6g8");
+        assertTrue(game.isThreefoldRepetition());
+        assertEquals(3, game.repetitions());
+        assertEquals(ChessGame.GameStatus.DRAW, game.getStatus());
+
+        var serializer = new Gson();
+        var restored = serializer.fromJson(serializer.toJson(game), ChessGame.class);
+        assertTrue(restored.isThreefoldRepetition());
+        play(restored, "g1f3", "g8f6", "f3g1", "f6g8", "g1f3", "g8f6", "f3g1", "f6g8");
+        assertEquals(5, restored.repetitions());
+
+        play(game, "e2e4");
+        assertEquals(0, game.historySize);
+        play(game, "g8f6", "g1f3", "f6g8", "f3g1");
+        assertFalse(game.isThreefoldRepetition());
+        assertEquals(4, game.halfmoveClock);
+    }
+
+    @Test
+    void serializedHistoryTest() throws InvalidMoveException {
+        var game = new ChessGame();
+        play(game, "g1f3", "g8f6", "f3g1", "f6g8", "g1f3");
+        var serializer = new Gson();
+        var json = serializer.toJsonTree(game).getAsJsonObject();
+        assertEquals(5, json.getAsJsonArray("history").size());
+        assertFalse(json.has("historySize"));
+
+//        Games stored before the history was trimmed carry the whole array and its size
+        for (int i = 0; i < 11; i++) {
+            json.getAsJsonArray("history").add(0L);
+        }
+        json.addProperty("historySize", 5);
+        var restored = serializer.fromJson(json, ChessGame.class);
+        assertEquals(5, restored.historySize);
+        play(restored, "g8f6", "f3g1", "f6g8");
+        assertTrue(restored.isThreefoldRepetition());
+    }
+
+    @Test
+    void unmakeMoveRestoresHistoryTest() throws InvalidMoveException {
+        var game = new ChessGame();
+        play(game, "g1f3", "g8f6", "f3g1");
+        int size = game.historySize;
+        var moves = new MoveList();
+        MoveGenerator.legal(game.getBoard(), game.getTeamTurn(), -1L, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            game.makeMove(moves.get(i));
+            game.unmakeMove();
+            assertEquals(size, game.historySize);
+            assertEquals(3, game.halfmoveClock);
+        }
+    }
+
+    @Test
+    void fiftyMoveRuleTest() throws InvalidMoveException {
+        var game = Fen.parse("4k3/8/8/8/8/8/4P3/R3K3 w - - 98 1");
+        assertEquals(98, game.halfmoveClock);
+        play(game, "a1a2");
+        assertFalse(game.isFiftyMoveRule());
+        assertFalse(game.isGameFinished());
+        play(game, "e8d8");
+        assertTrue(game.isFiftyMoveRule());
+        assertEquals(ChessGame.GameStatus.DRAW, game.getStatus());
+        assertTrue(game.isGameFinished());
+        assertEquals("3k4/8/8/8/8/8/R3P3/4K3 w - - 100 1", Fen.of(game));
+
+        game = Fen.parse("4k3/8/8/8/8/8/4P3/R3K3 w - - 150 1");
+        assertEquals(ChessGame.GameStatus.DRAW, game.getStatus());
+    }
+
+    @Test
+    void insufficientMaterialTest() throws InvalidMoveException {
+        assertTrue(Fen.parse("4k3/8/8/8/8/8/8/4K3 w - - 0 1").isInsufficientMaterial());
+        assertTrue(Fen.parse("4k3/8/8/8/8/8/8/3NK3 w - - 0 1").isInsufficientMaterial());
+        assertTrue(Fen.parse("2b1k3/8/8/8/8/8/8/4KB2 w - - 0 1").isInsufficientMaterial());
+        assertFalse(Fen.parse("1b2k3/8/8/8/8/8/8/4KB2 w - - 0 1").isInsufficientMaterial());
+        assertFalse(Fen.parse("4k3/8/8/8/8/8/8/2NNK3 w - - 0 1").isInsufficientMaterial());
+        assertFalse(Fen.parse("4k3/8/8/8/8/8/8/3RK3 w - - 0 1").isInsufficientMaterial());
+
+        var game = Fen.parse("4k3/8/8/8/8/8/3r4/4K3 w - - 0 1");
+        assertFalse(game.isInsufficientMaterial());
+        play(game, "e1d2");
+        assertTrue(game.isInsufficientMaterial());
+        assertEquals(ChessGame.GameStatus.DRAW, game.getStatus());
+        assertTrue(game.isGameFinished());
+    }
+
+    @Test
+    void snapshotTest() throws InvalidMoveException {
+        var game = new ChessGame();
+        play(game, "e2e4", "e7e5", "g1f3");
+        var snapshot = game.snapshot();
+        assertSame(snapshot, game.snapshot());
+        for (int square = 0; square < 64; square++) {
+            assertSame(game.getBoard().getPiece(square), snapshot.getPiece(square));
+        }
+        assertEquals(ChessGame.TeamColor.BLACK, snapshot.getTeamTurn());
+        assertEquals(game.key(), snapshot.key());
+        assertEquals(game, snapshot.toGame());
+        assertEquals(2, snapshot.validMoves(position("b8")).size());
+
+        play(game, "b8c6");
+        assertNotSame(snapshot, game.snapshot());
+        assertEquals(ChessGame.TeamColor.BLACK, snapshot.getTeamTurn());
+        assertNotNull(snapshot.getPiece(position("b8")));
+        assertNull(game.snapshot().getPiece(position("b8")));
+
+        game.endGame();
+        assertTrue(game.snapshot().isGameFinished());
+        var copy = game.snapshot().toGame();
+        assertTrue(copy.isGameFinished());
+        play(copy, "f1b5");
+        assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+    }
+
+    @Test
+    void staticExchangeTest() {
+        var game = Fen.parse("4k3/8/8/3p4/8/8/8/3QK3 w - - 0 1");
+        assertEquals(100, game.staticExchange(move("d1", "d5")));
+
+        game = Fen.parse("4k3/8/4p3/3p4/8/8/8/3QK3 w - - 0 1");
+        assertEquals(-800, game.staticExchange(move("d1", "d5")));
+
+//        The rook behind the queen backs up the first capture
+        game = Fen.parse("1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1");
+        assertEquals(100, game.staticExchange(move("e1", "e5")));
+        game = Fen.parse("1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1");
+        assertTrue(game.staticExchange(move("d3", "e5")) < 0);
+        game = Fen.parse("4k3/8/4r3/8/8/4R3/4R3/4K3 w - - 0 1");
+        assertEquals(500, game.staticExchange(move("e3", "e6")));
+
+//        The king cannot take back on a square that is still defended
+        game = Fen.parse("8/8/3k4/4p3/8/2B5/8/K3R3 w - - 0 1");
+        assertEquals(100, game.staticExchange(move("c3", "e5")));
+        game = Fen.parse("8/8/3k4/4p3/8/2B5/8/K7 w - - 0 1");
+        assertEquals(-230, game.staticExchange(move("c3", "e5")));
+
+        var start = Fen.parse(Fen.START);
+        assertEquals(0, start.staticExchange(move("g1", "f3")));
+        assertThrows(IllegalArgumentException.class, () -> start.staticExchange(move("e4", "e5")));
+    }
+}
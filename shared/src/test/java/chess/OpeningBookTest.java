@@ -0,0 +1,118 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpeningBookTest {
+
+    private static final String PGN = """
+            [Event "One"]
+            [Result "1-0"]
+
+            1. e4 e5 2. Nf3 {the usual} Nc6 3. Bb5 a6 (3... Nf6 4. O-O) 4. Ba4 Nf6 5. O-O Be7 1-0
+
+            [Event "Two"]
+            1.e4 e5 2.Nf3 Nf6 $1 3.Nxe5 d6 1/2-1/2
+
+            [Event "Three"]
+            1. d4 d5 2. c4 ; queen's gambit
+            e6 0-1
+
+            [Event "Four"]
+            [SetUp "1"]
+            [FEN "4k3/8/8/8/8/8/4P3/4K3 w - - 0 1"]
+            1. e4 Kd7 *
+            """;
+
+    private static ChessMove move(String uci) {
+        return Move.toChessMove(Move.of((uci.charAt(1) - '1') * 8 + uci.charAt(0) - 'a',
+                (uci.charAt(3) - '1') * 8 + uci.charAt(2) - 'a', Move.NONE));
+    }
+
+    @Test
+    void sanTest() throws InvalidMoveException {
+        var game = Fen.parse("r3k3/1P6/8/8/8/2N3N1/8/4K2R w - - 0 1");
+        assertEquals(move("c3e4"), Move.toChessMove(San.parse(game, "Nce4")));
+        assertEquals(0, San.parse(game, "Ne4"));
+        assertEquals(new ChessMove(ChessPosition.of(7, 2), ChessPosition.of(8, 1), ChessPiece.PieceType.QUEEN),
+                Move.toChessMove(San.parse(game, "bxa8=Q+")));
+        assertEquals(new ChessMove(ChessPosition.of(7, 2), ChessPosition.of(8, 2), ChessPiece.PieceType.KNIGHT),
+                Move.toChessMove(San.parse(game, "b8N")));
+        assertEquals(move("h1h8"), Move.toChessMove(San.parse(game, "Rh8#")));
+        assertEquals(0, San.parse(game, "O-O"));
+        assertEquals(0, San.parse(game, "Bb5"));
+
+        game = new ChessGame();
+        game.makeMove(move("e2e4"));
+        game.makeMove(move("d7d5"));
+        assertEquals(move("e4d5"), Move.toChessMove(San.parse(game, "exd5")));
+        assertEquals(move("e4e5"), Move.toChessMove(San.parse(game, "e5!?")));
+    }
+
+    @Test
+    void buildAndProbeTest(@TempDir Path directory) throws IOException, InvalidMoveException {
+        var builder = new OpeningBook.Builder(8, 1);
+        builder.addPgn(new StringReader(PGN));
+        assertEquals(4, builder.games());
+        var path = directory.resolve("book.bin");
+//        8 plies of game one, 3 more where game two leaves it and 4 from game three; the
+//        set-up game adds nothing
+        assertEquals(15, builder.write(path));
+        assertEquals(8 + 15 * 16, Files.size(path));
+
+        var book = OpeningBook.open(path);
+        assertEquals(15, book.size());
+        var game = new ChessGame();
+        assertEquals(move("e2e4"), book.bestMove(game));
+        game.makeMove(move("e2e4"));
+        assertEquals(move("e7e5"), book.bestMove(game));
+        game.makeMove(move("e7e5"));
+        game.makeMove(move("g1f3"));
+        var moves = new HashSet<ChessMove>();
+        var random = new SplittableRandom(1);
+        for (int i = 0; i < 50; i++) {
+            moves.add(book.pickMove(game, random));
+        }
+        assertEquals(Set.of(move("b8c6"), move("g8f6")), moves);
+        game.makeMove(move("b8c6"));
+        game.makeMove(move("f1b5"));
+        game.makeMove(move("a7a6"));
+        game.makeMove(move("b5a4"));
+        game.makeMove(move("g8f6"));
+        assertNull(book.bestMove(game));
+        assertNull(book.pickMove(game, random));
+
+        var other = new OpeningBook.Builder(8, 2);
+        other.addPgn(new StringReader(PGN));
+        other.write(path);
+        book = OpeningBook.open(path);
+        assertEquals(3, book.size());
+        assertEquals(move("e2e4"), book.bestMove(new ChessGame()));
+
+        Files.writeString(path, "not a book");
+        assertThrows(IOException.class, () -> OpeningBook.open(path));
+    }
+
+    @Test
+    void pgnWithoutFinalNewlineTest(@TempDir Path directory) throws IOException {
+        var builder = new OpeningBook.Builder(8, 1);
+        builder.addPgn(new StringReader("1. e4 e5 2. Nf3 1-0"));
+        assertEquals(1, builder.games());
+        builder.addPgn(new StringReader("1. d4 d5 2. c4"));
+        assertEquals(1, builder.games());
+        var path = directory.resolve("book.bin");
+        assertEquals(6, builder.write(path));
+        var game = Fen.parse("rnbqkbnr/ppp1pppp/8/3p4/3P4/8/PPP1PPPP/RNBQKBNR w - - 0 1");
+        assertEquals(move("c2c4"), OpeningBook.open(path).bestMove(game));
+    }
+}
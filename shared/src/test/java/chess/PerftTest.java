@@ -0,0 +1,85 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerftTest {
+
+    static List<Perft.Reference> references() {
+        return Perft.REFERENCES;
+    }
+
+    @ParameterizedTest
+    @MethodSource("references")
+    void referenceCountsTest(Perft.Reference reference) {
+        var game = Fen.parse(reference.fen());
+        var before = Fen.of(game);
+        for (int depth = 1; depth <= reference.counts().length; depth++) {
+            assertEquals(reference.counts()[depth - 1], Perft.perft(game, depth), reference.name() + " depth " + depth);
+        }
+        assertEquals(before, Fen.of(game));
+    }
+
+    @Test
+    void divideSumsToPerftTest() {
+        var game = Fen.parse(Perft.REFERENCES.get(1).fen());
+        var divide = Perft.divide(game, 3);
+        assertEquals(46, divide.size());
+        assertEquals(Perft.perft(game, 3), divide.values().stream().mapToLong(Long::longValue).sum());
+        assertEquals(Perft.perft(game, 2), Perft.divide(game, 2).values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void fenRoundTripTest() {
+        for (var reference : Perft.REFERENCES) {
+            assertEquals(reference.fen(), Fen.of(Fen.parse(reference.fen())));
+        }
+        assertEquals(new ChessGame(), Fen.parse(Fen.START));
+        assertThrows(IllegalArgumentException.class, () -> Fen.parse("8/8/8 w"));
+        assertThrows(IllegalArgumentException.class, () -> Fen.parse("9/8/8/8/8/8/8/8 w"));
+    }
+
+    @Test
+    void parallelPerftTest() {
+        var pool = new ForkJoinPool(4);
+        for (var reference : Perft.REFERENCES) {
+            var game = Fen.parse(reference.fen());
+            var before = Fen.of(game);
+            int depth = Math.min(reference.counts().length, Perft.SPLIT_DEPTH);
+            assertEquals(reference.counts()[depth - 1], Perft.perft(game, depth, pool), reference.name());
+            assertEquals(reference.counts()[0], Perft.perft(game, 1, pool), reference.name());
+            assertEquals(before, Fen.of(game));
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    void bulkAnalysisTest() {
+        var fens = List.of(Fen.START, "6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1", "k7/8/1Q6/8/8/8/8/K7 b - - 0 1",
+                "not a fen", "rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w - - 1 3");
+        var pool = new ForkJoinPool(2);
+        var reports = BulkAnalysis.analyze(fens, 3, pool);
+        pool.shutdown();
+        assertEquals(fens.size(), reports.size());
+        for (int i = 0; i < fens.size(); i++) {
+            assertEquals(fens.get(i), reports.get(i).fen());
+        }
+        assertEquals(20, reports.get(0).legalMoves());
+        assertEquals(ChessGame.GameStatus.ONGOING, reports.get(0).status());
+        assertTrue(reports.get(1).search().isMate());
+        assertEquals(ChessGame.GameStatus.STALEMATE, reports.get(2).status());
+        assertNull(reports.get(2).search());
+        assertNull(reports.get(3).status());
+        assertNotNull(reports.get(3).error());
+        assertEquals(ChessGame.GameStatus.CHECKMATE, reports.get(4).status());
+        assertEquals(0, reports.get(4).legalMoves());
+
+        assertTrue(BulkAnalysis.analyze(fens, 0, ForkJoinPool.commonPool()).stream().allMatch(r -> r.search() == null));
+    }
+}
@@ -0,0 +1,242 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchTest {
+
+    private static ChessMove move(String uci) {
+        return Move.toChessMove(Move.of(square(uci.substring(0, 2)), square(uci.substring(2, 4)), Move.NONE));
+    }
+
+    private static int square(String name) {
+        return (name.charAt(1) - '1') * 8 + name.charAt(0) - 'a';
+    }
+
+    @Test
+    void mateInOneTest() {
+        var game = Fen.parse("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1");
+        var result = new Search(game).run(Search.Limits.depth(4));
+        assertEquals(move("a1a8"), result.bestMove());
+        assertTrue(result.isMate());
+        assertEquals(Search.MATE - 1, result.score());
+    }
+
+    @Test
+    void mateInTwoTest() throws InvalidMoveException {
+        var game = Fen.parse("k7/8/2K5/8/8/8/8/7R w - - 0 1");
+        var result = new Search(game).run(Search.Limits.depth(5));
+        assertEquals(Search.MATE - 3, result.score());
+        assertEquals(3, result.principalVariation().size());
+        for (var move : result.principalVariation()) {
+            game.makeMove(move);
+        }
+        assertEquals(ChessGame.GameStatus.CHECKMATE, game.getStatus());
+    }
+
+    @Test
+    void winsHangingQueenTest() {
+        var game = Fen.parse("4k3/8/8/3q4/8/8/8/3RK3 w - - 0 1");
+        var result = new Search(game).run(Search.Limits.depth(3));
+        assertEquals(move("d1d5"), result.bestMove());
+        assertTrue(result.score() > 300);
+    }
+
+    @Test
+    void searchLeavesGameUntouchedTest() {
+        var game = Fen.parse(Fen.START);
+        long key = game.key();
+        var iterations = new ArrayList<Search.Result>();
+        var result = new Search(game).run(Search.Limits.depth(4), iterations::add);
+        assertEquals(key, game.key());
+        assertEquals(4, result.depth());
+        assertEquals(4, iterations.size());
+        assertEquals(4, result.principalVariation().size());
+        assertNotNull(result.bestMove());
+    }
+
+    @Test
+    void nodeLimitTest() {
+        var result = new Search(Fen.parse(Fen.START)).run(Search.Limits.nodes(5000));
+        assertTrue(result.nodes() <= 5000);
+        assertNotNull(result.bestMove());
+    }
+
+    @Test
+    void stopTest() throws InterruptedException {
+        var search = new Search(Fen.parse(Fen.START));
+        var thread = new Thread(() -> search.run(Search.Limits.depth(Search.MAX_PLY)));
+        thread.start();
+        Thread.sleep(50);
+        search.stop();
+        thread.join(2000);
+        assertFalse(thread.isAlive());
+    }
+
+    @Test
+    void noMovesTest() {
+        var mated = new Search(Fen.parse("R5k1/5ppp/8/8/8/8/8/6K1 b - - 0 1")).run(Search.Limits.depth(3));
+        assertNull(mated.bestMove());
+        assertEquals(-Search.MATE, mated.score());
+        var stalemated = new Search(Fen.parse("k7/8/1Q6/8/8/8/8/K7 b - - 0 1")).run(Search.Limits.depth(3));
+        assertNull(stalemated.bestMove());
+        assertEquals(0, stalemated.score());
+    }
+
+    @Test
+    void transpositionTableEntryTest() {
+        var table = new TranspositionTable(1);
+        long key = 0x123456789ABCDEFL;
+        assertEquals(0, table.probe(key));
+        int move = Move.of(12, 28, Move.DOUBLE_PUSH);
+        table.store(key, move, -250, 7, TranspositionTable.LOWER);
+        long entry = table.probe(key);
+        assertEquals(move, TranspositionTable.move(entry));
+        assertEquals(-250, TranspositionTable.score(entry));
+        assertEquals(7, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(entry));
+        assertEquals(0, table.probe(key ^ (1L << 40)));
+
+//        A shallower result for a colliding position doesn't evict a deeper one from this search
+        long collision = key ^ (1L << 50);
+        table.store(collision, 0, 10, 3, TranspositionTable.UPPER);
+        assertEquals(0, table.probe(collision));
+        table.newSearch();
+        table.store(collision, 0, 10, 3, TranspositionTable.UPPER);
+        assertEquals(10, TranspositionTable.score(table.probe(collision)));
+        assertEquals(0, table.probe(key));
+
+        int mate = Search.MATE - 9;
+        assertEquals(mate, TranspositionTable.fromStored(TranspositionTable.toStored(mate, 4), 4));
+        assertEquals(Search.MATE - 7, TranspositionTable.fromStored(TranspositionTable.toStored(mate, 4), 2));
+    }
+
+    @Test
+    void parallelSearchTest() {
+        var game = Fen.parse("k7/8/2K5/8/8/8/8/7R w - - 0 1");
+        var result = new Search(game, 4, 8).run(Search.Limits.depth(6));
+        assertEquals(Search.MATE - 3, result.score());
+        assertEquals(3, result.principalVariation().size());
+
+        var timed = new Search(Fen.parse(Fen.START), 3, 8).run(Search.Limits.millis(200));
+        assertNotNull(timed.bestMove());
+        assertTrue(timed.depth() >= 3);
+    }
+
+    @Test
+    void iterationNodeCountTest() {
+        var game = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - - 0 1");
+        var iterations = new ArrayList<Search.Result>();
+        var result = new Search(game).run(Search.Limits.depth(5), iterations::add);
+        var last = iterations.get(iterations.size() - 1);
+        assertEquals(5, last.depth());
+        assertEquals(result.nodes(), last.nodes());
+
+        iterations.clear();
+        var parallel = new Search(game, 2, 8).run(Search.Limits.depth(5), iterations::add);
+        long previous = 0;
+        for (var iteration : iterations) {
+            assertTrue(iteration.nodes() >= previous);
+            previous = iteration.nodes();
+        }
+        assertTrue(previous <= parallel.nodes());
+    }
+
+    @Test
+    void incrementalEvaluationTest() {
+        var game = Fen.parse(Fen.START);
+        assertEquals(0, Evaluation.evaluate(game.getBoard(), ChessGame.TeamColor.WHITE));
+        assertEquals(Evaluation.MAX_PHASE, game.getBoard().phase());
+
+        game = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - - 0 1");
+        int score = Evaluation.evaluate(game.getBoard(), ChessGame.TeamColor.WHITE);
+        assertEquals(-score, Evaluation.evaluate(game.getBoard(), ChessGame.TeamColor.BLACK));
+        var moves = new MoveList();
+        MoveGenerator.legal(game.getBoard(), game.getTeamTurn(), -1L, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            game.makeMove(moves.get(i));
+            assertTrue(Evaluation.rescan(game.getBoard()));
+            game.unmakeMove();
+            assertEquals(score, Evaluation.evaluate(game.getBoard(), ChessGame.TeamColor.WHITE));
+        }
+
+//        Mirroring the position and swapping colors gives the same score for the side to move
+        var mirrored = Fen.parse("r3k2r/pppbbppp/2n2q1P/1P2p3/3pn3/BN2PNP1/P1PPQPB1/R3K2R b - - 0 1");
+        assertEquals(score, Evaluation.evaluate(mirrored.getBoard(), ChessGame.TeamColor.BLACK));
+
+//        Kings head for the centre once the heavy pieces are gone
+        var centre = Fen.parse("8/8/8/3k4/8/8/8/K7 w - - 0 1");
+        assertTrue(Evaluation.evaluate(centre.getBoard(), ChessGame.TeamColor.BLACK) > 0);
+    }
+
+    @Test
+    void moveOrderingTest() {
+//        White can take the queen with the pawn or the rook, or the knight with the rook
+        var board = Fen.parse("4k3/8/8/2q1n3/1P6/8/8/2R1K3 w - - 0 1").getBoard();
+        var moves = new MoveList();
+        MoveGenerator.legal(board, ChessGame.TeamColor.WHITE, -1L, moves);
+        int hashMove = Move.of(square("e1"), square("f1"), Move.NONE);
+        int killer = Move.of(square("e1"), square("d2"), Move.NONE);
+        var ordering = new MoveOrdering();
+        ordering.cutoff(board, killer, 3, 4);
+        ordering.score(board, moves, 3, hashMove);
+        assertEquals(hashMove, ordering.next(moves, 3, 0));
+        assertEquals(Move.of(square("b4"), square("c5"), Move.CAPTURE), ordering.next(moves, 3, 1));
+        assertEquals(Move.of(square("c1"), square("c5"), Move.CAPTURE), ordering.next(moves, 3, 2));
+        assertEquals(killer, ordering.next(moves, 3, 3));
+
+        int[] seen = new int[moves.size()];
+        for (int i = 0; i < moves.size(); i++) {
+            seen[i] = moves.get(i);
+        }
+        var regenerated = new MoveList();
+        MoveGenerator.legal(board, ChessGame.TeamColor.WHITE, -1L, regenerated);
+        assertEquals(regenerated.size(), seen.length);
+        for (int i = 0; i < regenerated.size(); i++) {
+            int move = regenerated.get(i);
+            assertTrue(Arrays.stream(seen).anyMatch(m -> m == move));
+        }
+    }
+
+    @Test
+    void quiescenceTest() {
+//        At depth 1 the pawn looks free; only the recapture shows it costs the queen
+        var game = Fen.parse("4k3/8/4p3/3p4/8/8/8/3QK3 w - - 0 1");
+        var result = new Search(game).run(Search.Limits.depth(1));
+        assertNotEquals(move("d1d5"), result.bestMove());
+        assertTrue(result.score() > 500);
+
+        for (var reference : Perft.REFERENCES) {
+            var board = Fen.parse(reference.fen()).getBoard();
+            for (var color : ChessGame.TeamColor.values()) {
+                var all = new MoveList();
+                MoveGenerator.legal(board, color, -1L, all);
+                var captures = new MoveList();
+                MoveGenerator.legal(board, color, -1L, board.pieces(color.opponent()), captures);
+                int expected = 0;
+                for (int i = 0; i < all.size(); i++) {
+                    if (Move.isCapture(all.get(i))) {
+                        expected++;
+                    }
+                }
+                assertEquals(expected, captures.size(), reference.name());
+            }
+        }
+    }
+
+    @Test
+    void reusedTableTest() {
+        var table = new TranspositionTable(1);
+        var first = new Search(Fen.parse("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1"), table).run(Search.Limits.depth(4));
+        assertEquals(move("a1a8"), first.bestMove());
+        var second = new Search(Fen.parse("k7/8/2K5/8/8/8/8/7R w - - 0 1"), table).run(Search.Limits.depth(5));
+        assertEquals(Search.MATE - 3, second.score());
+        var again = new Search(Fen.parse("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1"), table).run(Search.Limits.depth(4));
+        assertEquals(first.score(), again.score());
+        assertEquals(first.bestMove(), again.bestMove());
+    }
+}
@@ -0,0 +1,105 @@
+package chess;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TablebaseTest {
+
+    @TempDir
+    static Path directory;
+    private static Tablebase tablebase;
+
+    @BeforeAll
+    static void generate() throws IOException {
+//        The four-piece KBNK table takes too long to build for a unit test
+        Tablebase.generate(directory, ForkJoinPool.commonPool(),
+                Tablebase.Material.KQK, Tablebase.Material.KRK, Tablebase.Material.KPK);
+        tablebase = Tablebase.open(directory);
+    }
+
+    private static int probe(String fen) {
+        return tablebase.probe(Fen.parse(fen));
+    }
+
+    @Test
+    void probeTest() {
+        assertTrue(tablebase.covers(Tablebase.Material.KPK));
+        assertFalse(tablebase.covers(Tablebase.Material.KBNK));
+
+        assertEquals(Search.MATE - 1, probe("k7/8/1K6/8/8/8/8/6Q1 w - - 0 1"));
+        assertEquals(-Search.MATE, probe("k7/1Q6/1K6/8/8/8/8/8 b - - 0 1"));
+        assertEquals(0, probe("k7/8/1Q6/8/8/8/8/K7 b - - 0 1"));
+//        The bare king takes the undefended queen
+        assertEquals(0, probe("8/8/8/8/8/8/1Q6/k6K b - - 0 1"));
+        assertEquals(0, probe("k7/8/K7/P7/8/8/8/8 w - - 0 1"));
+        assertTrue(probe("8/4P3/8/8/8/8/k7/4K3 w - - 0 1") > Search.MATE - Search.MAX_PLY);
+        assertTrue(probe("8/4P3/8/8/8/8/k7/4K3 b - - 0 1") < -(Search.MATE - Search.MAX_PLY));
+
+//        The same positions with the colors swapped and the board mirrored
+        assertEquals(Search.MATE - 1, probe("6q1/8/8/8/8/1k6/8/K7 b - - 0 1"));
+        assertEquals(-Search.MATE, probe("8/8/8/8/8/1k6/1q6/K7 w - - 0 1"));
+
+        assertEquals(Tablebase.NOT_FOUND, probe(Fen.START));
+        assertEquals(Tablebase.NOT_FOUND, probe("4k3/8/8/8/8/8/8/2BNK3 w - - 0 1"));
+        assertEquals(Tablebase.NOT_FOUND, probe("4k3/8/8/8/8/8/8/3QK2q w - - 0 1"));
+        assertEquals(0, probe("4k3/8/8/8/8/8/8/4K3 w - - 0 1"));
+    }
+
+    @Test
+    void entriesAgreeWithTheirMovesTest() {
+//        Every covered position must score one ply more than its best move
+        var random = new SplittableRandom(7);
+        var moves = new MoveList();
+        for (var material : new Tablebase.Material[]{Tablebase.Material.KQK, Tablebase.Material.KRK, Tablebase.Material.KPK}) {
+            int checked = 0;
+            while (checked < 2000) {
+                var board = new ChessBoard();
+                var strong = random.nextBoolean() ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+                board.setPiece(random.nextInt(64), ChessPiece.of(strong, ChessPiece.PieceType.KING));
+                board.setPiece(random.nextInt(64), ChessPiece.of(strong.opponent(), ChessPiece.PieceType.KING));
+                board.setPiece(random.nextInt(64), ChessPiece.of(strong, material.pieces[0]));
+                var game = new ChessGame(board, random.nextBoolean() ? strong : strong.opponent());
+                int score = tablebase.probe(game);
+                if (score == Tablebase.NOT_FOUND) {
+                    continue;
+                }
+                checked++;
+                moves.clear();
+                MoveGenerator.legal(board, game.getTeamTurn(), -1L, moves);
+                if (moves.isEmpty()) {
+                    assertEquals(game.isInCheck(game.getTeamTurn()) ? -Search.MATE : 0, score, Fen.of(game));
+                    continue;
+                }
+                int best = Integer.MIN_VALUE;
+                for (int i = 0; i < moves.size(); i++) {
+                    game.makeMove(moves.get(i));
+                    int reply = tablebase.probe(game);
+                    game.unmakeMove();
+                    best = Math.max(best, reply == Tablebase.NOT_FOUND ? 0 : -reply);
+                }
+                assertEquals(best > 0 ? best - 1 : best < 0 ? best + 1 : 0, score, Fen.of(game));
+            }
+        }
+    }
+
+    @Test
+    void bestMoveMatesInTimeTest() throws InvalidMoveException {
+        var game = Fen.parse("8/8/8/3k4/8/8/8/K6R w - - 0 1");
+        int plies = Search.MATE - tablebase.probe(game);
+        assertTrue(plies > 20);
+        for (int i = 0; i < plies; i++) {
+            game.makeMove(tablebase.bestMove(game));
+        }
+        assertEquals(ChessGame.GameStatus.CHECKMATE, game.getStatus());
+        assertNull(tablebase.bestMove(game));
+        assertNull(tablebase.bestMove(Fen.parse(Fen.START)));
+    }
+}